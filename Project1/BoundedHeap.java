@@ -0,0 +1,192 @@
+/************************************************************************************************
+ *  This class handles keeping the record indexes with the smallest keys out of a stream of them
+ *
+ *  It holds at most capacity entries in a heap with the largest kept key at the top, so a new entry
+ *  is checked against the top and, if it is smaller, replaces it in O(log capacity).  Going through n
+ *  entries takes O(n log capacity) time and O(capacity) memory however long the stream is.
+ *
+ *  Entries with the same key are ordered by index, so the smaller index is kept
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public class BoundedHeap
+{
+    private double[] keys;
+    private int[] ids;
+    private int size;
+
+    /**
+     * Constructor to create an empty heap
+     * @param capacity int: the most entries to keep, 0 or more
+     */
+    public BoundedHeap(int capacity)
+    {
+        keys = new double[Math.max( capacity, 0 )];
+        ids = new int[keys.length];
+        size = 0;
+    }
+
+    /**
+     * Accessor method to get the number of entries kept
+     * @return int: the number of entries
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Accessor method to check if the heap holds as many entries as it can
+     * @return boolean: true if the heap is full
+     */
+    public boolean isFull()
+    {
+        return size == keys.length;
+    }
+
+    /**
+     * Accessor method to get the largest key kept, which a new entry must beat once the heap is full
+     * @return double: the largest key, or positive infinity if the heap is empty
+     */
+    public double getLargestKey()
+    {
+        return size == 0 ? Double.POSITIVE_INFINITY : keys[0];
+    }
+
+    /**
+     * Method to offer an entry to the heap
+     * It is kept if the heap is not full or if it is smaller than the largest entry, which is then dropped
+     * @param id int: the index of the record
+     * @param key double: the key of the record
+     * @return boolean: true if the entry was kept, false if not
+     */
+    public boolean add(int id, double key)
+    {
+        boolean kept = true;
+
+        if (size < keys.length)
+        {
+            keys[size] = key;
+            ids[size] = id;
+            size++;
+            siftUp( size - 1 );
+        }
+        else if (size > 0 && isLess( key, id, keys[0], ids[0] ))
+        {
+            keys[0] = key;
+            ids[0] = id;
+            siftDown( 0 );
+        }
+        else
+        {
+            kept = false;
+        }
+
+        return kept;
+    }
+
+    /**
+     * Method to take every entry out of the heap
+     * @return IntList: the indexes of the entries, from the smallest key to the largest
+     */
+    public IntList takeSorted()
+    {
+        int[] sorted = new int[size];
+        IntList list = new IntList( size );
+
+        while (size > 0)                        // the top is the largest, so fill from the end
+        {
+            sorted[size - 1] = ids[0];
+            size--;
+            keys[0] = keys[size];
+            ids[0] = ids[size];
+            siftDown( 0 );
+        }
+
+        for (int id : sorted)
+        {
+            list.add( id );
+        }
+        return list;
+    }
+
+    /**
+     * Method to move an entry up the heap until its parent is larger
+     * @param i int: the position of the entry
+     */
+    private void siftUp(int i)
+    {
+        int parent;
+
+        while (i > 0)
+        {
+            parent = (i - 1) / 2;
+            if (!isLess( keys[parent], ids[parent], keys[i], ids[i] ))
+            {
+                break;
+            }
+            swap( i, parent );
+            i = parent;
+        }
+    }
+
+    /**
+     * Method to move an entry down the heap until its children are smaller
+     * @param i int: the position of the entry
+     */
+    private void siftDown(int i)
+    {
+        int child, largest;
+
+        while (true)
+        {
+            largest = i;
+            child = 2 * i + 1;
+            if (child < size && isLess( keys[largest], ids[largest], keys[child], ids[child] ))
+            {
+                largest = child;
+            }
+            child++;
+            if (child < size && isLess( keys[largest], ids[largest], keys[child], ids[child] ))
+            {
+                largest = child;
+            }
+            if (largest == i)
+            {
+                break;
+            }
+            swap( i, largest );
+            i = largest;
+        }
+    }
+
+    /**
+     * Method to swap two entries of the heap
+     * @param i int: the position of one entry
+     * @param j int: the position of the other entry
+     */
+    private void swap(int i, int j)
+    {
+        double key = keys[i];
+        int id = ids[i];
+
+        keys[i] = keys[j];
+        ids[i] = ids[j];
+        keys[j] = key;
+        ids[j] = id;
+    }
+
+    /**
+     * Method to check if one entry comes before another
+     * @param key1 double: the key of the first entry
+     * @param id1 int: the index of the first entry
+     * @param key2 double: the key of the second entry
+     * @param id2 int: the index of the second entry
+     * @return boolean: true if the first entry has the smaller key, or the same key and the smaller index
+     */
+    private static boolean isLess(double key1, int id1, double key2, int id2)
+    {
+        return key1 < key2 || (key1 == key2 && id1 < id2);
+    }
+}
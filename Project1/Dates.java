@@ -15,9 +15,11 @@ public class Dates
 {
     // date fields
     private int month, day, year;
+    private static final long TIME_SCALE = 1000000000L;     // timestamp = packed date * TIME_SCALE + packed time
+    public static final int MAX_PACKED_YEAR = 214747;       // largest year of a packed date that fits in an int
 
     // String to save the month codes
-    private final String[] MONTH_CODE = {"NA ", "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL",
+    private static final String[] MONTH_CODE = {"NA ", "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL",
             "AUG", "SEP", "OCT", "NOV", "DEC" };
     private final String[] MONTH = {"Not Valid", "January", "February", "March", "April", "May", "June", "July",
             "August", "September", "October", "November", "December"};
@@ -170,6 +172,18 @@ public class Dates
      * @return boolean: true if the day is valid, false if it is not
      */
     public boolean isValid()
+    {
+        return isValid( year, month, day );
+    }
+
+    /**
+     * Method checks to see if a year, month and day make a valid day
+     * @param year int: the year
+     * @param month int: the month
+     * @param day int: the day
+     * @return boolean: true if the day is valid, false if it is not
+     */
+    public static boolean isValid(int year, int month, int day)
     {
         boolean valid = true;
         if ( year < 1)                      // must be a valid AD year
@@ -192,7 +206,7 @@ public class Dates
         {
             valid = false;
         }
-        else if (day == 29 && month ==2 && !isLeapYear() )  // day cannot be 29 in February if it is not a leap year
+        else if (day == 29 && month ==2 && !isLeapYear( year ) )  // day cannot be 29 in February if it is not a leap year
         {
             valid = false;
         }
@@ -210,6 +224,16 @@ public class Dates
      * @return boolean: true if the year is a leap year, false otherwise
      */
     public boolean isLeapYear()
+    {
+        return isLeapYear( year );
+    }
+
+    /**
+     * Method checks if a year is a leap year, using the same rules as isLeapYear()
+     * @param year int: the year
+     * @return boolean: true if the year is a leap year, false otherwise
+     */
+    public static boolean isLeapYear(int year)
     {
         boolean leapYear = false;
 
@@ -219,7 +243,6 @@ public class Dates
         }
         return leapYear;
     }
-
     /**
      * Method to convert a date object to a string
      * @return String: a string representing the date object
@@ -243,6 +266,49 @@ public class Dates
         return string;
     }
 
+    /**
+     * Method to add the date to a StringBuilder in the format requested by the instructor
+     * The digits are added directly, so no temporary Strings are created
+     * @param builder StringBuilder: the builder to add the date to
+     * @return StringBuilder: the builder, to allow calls to be chained
+     */
+    public StringBuilder appendModString(StringBuilder builder)
+    {
+        return appendModString( builder, year, month, day );
+    }
+
+    /**
+     * Method to add a date to a StringBuilder in the form DD MMM YY, the same as toModString
+     * @param builder StringBuilder: the builder to add the date to
+     * @param year int: the year
+     * @param month int: the month
+     * @param day int: the day
+     * @return StringBuilder: the builder, to allow calls to be chained
+     */
+    public static StringBuilder appendModString(StringBuilder builder, int year, int month, int day)
+    {
+        boolean valid = isValid( year, month, day );
+
+        if (valid)
+        {
+            builder.append( (char) ('0' + day / 10) ).append( (char) ('0' + day % 10) );
+        }
+        else
+        {
+            builder.append( "NA" );
+        }
+        builder.append( ' ' ).append( MONTH_CODE[month > 0 && month < 13 ? month : 0] ).append( ' ' );
+        if (valid)
+        {
+            builder.append( (char) ('0' + year % 100 / 10) ).append( (char) ('0' + year % 10) );
+        }
+        else
+        {
+            builder.append( "NA" );
+        }
+        return builder;
+    }
+
     /**
      * Method to convert a day to a two character String
      * @return String: a two character String for the day or "NA" if the date was not volid
@@ -341,6 +407,140 @@ public class Dates
         return compare;
     }
 
-}
+    /**
+     * Method to pack a date into an int of the form yyyymmdd
+     * Dates with years from 0 to MAX_PACKED_YEAR and months and days from 0 to 99 decode to the same fields,
+     * and packed valid dates sort in the same order as compareTo, so they are compared as one int.
+     * A field outside of its range would carry into the next field or overflow, so it is clamped: a negative
+     * year, month or day is stored as 0 and a month or day past 99 as 99, which are not valid either, so an
+     * invalid date stays invalid.  A year past MAX_PACKED_YEAR is stored as MAX_PACKED_YEAR, or as the leap year
+     * MAX_PACKED_YEAR - 3 if it is a leap year, so February 29 is still valid or not
+     * @param year int: the year
+     * @param month int: the month
+     * @param day int: the day
+     * @return int: the packed date
+     */
+    public static int encode(int year, int month, int day)
+    {
+        if (year > MAX_PACKED_YEAR)
+        {
+            year = isLeapYear( year ) ? MAX_PACKED_YEAR - 3 : MAX_PACKED_YEAR;
+        }
+        return Math.max( 0, year ) * 10000 + Math.max( 0, Math.min( 99, month ) ) * 100 + Math.max( 0, Math.min( 99, day ) );
+    }
+
+    /**
+     * Method to get the year of a packed date
+     * @param packed int: a date of the form yyyymmdd
+     * @return int: the year
+     */
+    public static int decodeYear(int packed)
+    {
+        return packed / 10000;
+    }
+
+    /**
+     * Method to get the month of a packed date
+     * @param packed int: a date of the form yyyymmdd
+     * @return int: the month
+     */
+    public static int decodeMonth(int packed)
+    {
+        return packed / 100 % 100;
+    }
+
+    /**
+     * Method to get the day of a packed date
+     * @param packed int: a date of the form yyyymmdd
+     * @return int: the day
+     */
+    public static int decodeDay(int packed)
+    {
+        return packed % 100;
+    }
+
+    /**
+     * Method to create a Dates object from a packed date
+     * @param packed int: a date of the form yyyymmdd
+     * @return Dates: a new Dates object holding the date
+     */
+    public static Dates decode(int packed)
+    {
+        return new Dates( decodeMonth( packed ), decodeDay( packed ), decodeYear( packed ) );
+    }
+
+    /**
+     * Method to pack the date into an int of the form yyyymmdd
+     * @return int: the packed date
+     */
+    public int toPacked()
+    {
+        return encode( year, month, day );
+    }
+
+    /**
+     * Method to count the days from January 1, 1970 to a packed date
+     * Unlike packed dates, day numbers can be subtracted to find the days between two dates
+     * @param packed int: a date of the form yyyymmdd
+     * @return int: the number of days after January 1, 1970, negative for earlier dates
+     */
+    public static int epochDay(int packed)
+    {
+        int year = decodeYear( packed );
+        int month = decodeMonth( packed );
+        int era, yearOfEra, dayOfYear;
+
+        if (month <= 2)                 // count years from March so the leap day is the last day of the year
+        {
+            year--;
+        }
+        era = Math.floorDiv( year, 400 );
+        yearOfEra = year - era * 400;
+        dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + decodeDay( packed ) - 1;
+
+        return era * 146097 + yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear - 719468;
+    }
 
+    /**
+     * Method to pack a date and a time into a timestamp long of the form yyyymmddhhmmssSSS
+     * Timestamps sort in date then time order, so a date and time are compared as one long
+     * @param packedDate int: a date of the form yyyymmdd
+     * @param packedTime int: a time of the form hhmmssSSS, from Times.encode
+     * @return long: the timestamp
+     */
+    public static long encodeTimestamp(int packedDate, int packedTime)
+    {
+        return packedDate * TIME_SCALE + packedTime;
+    }
 
+    /**
+     * Method to pack a Dates and a Times object into a timestamp long of the form yyyymmddhhmmssSSS
+     * @param date Dates: the date
+     * @param time Times: the time of day
+     * @return long: the timestamp
+     */
+    public static long encodeTimestamp(Dates date, Times time)
+    {
+        return encodeTimestamp( date.toPacked(), time.toPacked() );
+    }
+
+    /**
+     * Method to get the packed date of a timestamp
+     * @param timestamp long: a timestamp of the form yyyymmddhhmmssSSS
+     * @return int: the date of the form yyyymmdd
+     */
+    public static int timestampDate(long timestamp)
+    {
+        return (int) (timestamp / TIME_SCALE);
+    }
+
+    /**
+     * Method to get the packed time of a timestamp
+     * @param timestamp long: a timestamp of the form yyyymmddhhmmssSSS
+     * @return int: the time of the form hhmmssSSS
+     */
+    public static int timestampTime(long timestamp)
+    {
+        return (int) (timestamp % TIME_SCALE);
+    }
+}
@@ -0,0 +1,174 @@
+/************************************************************************************************
+ *  This class handles a list of int values
+ *
+ *  It is used to hold record indexes for the quake data indexes and search results without
+ *  boxing each value into an Integer object.  The array doubles in size when it is full
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.util.Arrays;
+
+public class IntList
+{
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] values;
+    private int size;
+
+    /**
+     * No-argument constructor to create an empty list
+     */
+    public IntList()
+    {
+        this( INITIAL_CAPACITY );
+    }
+
+    /**
+     * Constructor to create an empty list with room for a number of values
+     * @param capacity int: the number of values that fit before the list grows
+     */
+    public IntList(int capacity)
+    {
+        values = new int[Math.max( capacity, 1 )];
+        size = 0;
+    }
+
+    /**
+     * Accessor method to get the number of values in the list
+     * @return int: the number of values
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Accessor method to get a value in the list
+     * @param i int: the position of the value
+     * @return int: the value at the position
+     */
+    public int get(int i)
+    {
+        return values[i];
+    }
+
+    /**
+     * Mutator method to change a value in the list
+     * @param i int: the position of the value
+     * @param value int: the new value
+     */
+    public void set(int i, int value)
+    {
+        values[i] = value;
+    }
+
+    /**
+     * Method to add a value to the end of the list
+     * @param value int: the value to add
+     */
+    public void add(int value)
+    {
+        if (size == values.length)
+        {
+            values = Arrays.copyOf( values, values.length * 2 );
+        }
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Method to add every value of another list to the end of this list
+     * @param other IntList: the list with the values to add
+     */
+    public void addAll(IntList other)
+    {
+        if (size + other.size > values.length)
+        {
+            values = Arrays.copyOf( values, Math.max( values.length * 2, size + other.size ) );
+        }
+        System.arraycopy( other.values, 0, values, size, other.size );
+        size += other.size;
+    }
+
+    /**
+     * Method to remove a value by moving the last value in the list into its position
+     * @param i int: the position of the value to remove
+     * @return int: the value that was removed
+     */
+    public int removeSwap(int i)
+    {
+        int value = values[i];
+
+        size--;
+        values[i] = values[size];
+        return value;
+    }
+
+    /**
+     * Method to replace every value in the list by the element of a table at that value
+     * @param newValues int[]: element v is the value to replace v with
+     */
+    public void renumber(int[] newValues)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = newValues[values[i]];
+        }
+    }
+
+    /**
+     * Method to move every value of the list to a new position, dropping the values with no new position
+     * The new positions must increase with the old positions, so the values are moved in one pass
+     * @param newPositions int[]: element i is the new position of the value at position i, or -1 to drop it
+     */
+    public void compact(int[] newPositions)
+    {
+        int kept = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            if (i < newPositions.length && newPositions[i] >= 0)
+            {
+                values[newPositions[i]] = values[i];
+                kept = newPositions[i] + 1;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Method to remove every value from the list
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Method to sort the values in the list in increasing order
+     */
+    public void sort()
+    {
+        Arrays.sort( values, 0, size );
+    }
+
+    /**
+     * Method to check if a sorted list holds a value, using a binary search
+     * @param value int: the value to look for
+     * @return boolean: true if the value is in the list, false if not
+     */
+    public boolean sortedContains(int value)
+    {
+        return Arrays.binarySearch( values, 0, size, value ) >= 0;
+    }
+
+    /**
+     * Method to copy the values to an array
+     * @return int[]: a new array holding the values of the list
+     */
+    public int[] toArray()
+    {
+        return Arrays.copyOf( values, size );
+    }
+}
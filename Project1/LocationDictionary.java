@@ -0,0 +1,224 @@
+/************************************************************************************************
+ *  This class handles a dictionary of location names
+ *
+ *  Each different name is given an int id the first time it is seen, so records only need to hold
+ *  the id.  The same place names repeat across thousands of records, so the names are stored once
+ *  and records with the same location are found by comparing ids instead of strings.
+ *
+ *  Two inverted indexes are kept over the upper case names, each giving the ids of the names that
+ *  hold a key in increasing order:
+ *    words      each run of letters and digits in a name, for searchWords
+ *    trigrams   each three characters in a row in a name, for search
+ *  A search only checks the names in the shortest list for its words or trigrams, rather than every name.
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class LocationDictionary
+{
+    public static final int NOT_FOUND = -1;
+    private static final int GRAM_LENGTH = 3;
+
+    private ArrayList<String> names = new ArrayList<>();           // element id is the name with the id
+    private ArrayList<String> upperNames = new ArrayList<>();      // element id is the name in upper case
+    private HashMap<String, Integer> ids = new HashMap<>();
+    private HashMap<String, IntList> wordIds = new HashMap<>();     // ids of the names holding each word
+    private HashMap<String, IntList> trigramIds = new HashMap<>();  // ids of the names holding each trigram
+
+    /**
+     * Accessor method to get the number of names in the dictionary
+     * @return int: the number of names, which is one more than the largest id
+     */
+    public int size()
+    {
+        return names.size();
+    }
+
+    /**
+     * Method to get the id of a name, adding the name to the dictionary if it is new
+     * @param name String: the location name
+     * @return int: the id of the name
+     */
+    public int intern(String name)
+    {
+        Integer id = ids.get( name );
+        String upperName;
+
+        if (id == null)
+        {
+            id = names.size();
+            upperName = name.toUpperCase();
+            names.add( name );
+            upperNames.add( upperName );
+            ids.put( name, id );
+
+            for (String word : words( upperName ))
+            {
+                addKey( wordIds, word, id );
+            }
+            for (int start = 0; start + GRAM_LENGTH <= upperName.length(); start++)
+            {
+                addKey( trigramIds, upperName.substring( start, start + GRAM_LENGTH ), id );
+            }
+        }
+
+        return id;
+    }
+
+    /**
+     * Method to get the id of a name without adding it
+     * @param name String: the location name
+     * @return int: the id of the name, or NOT_FOUND if it is not in the dictionary
+     */
+    public int find(String name)
+    {
+        Integer id = ids.get( name );
+
+        return id == null ? NOT_FOUND : id;
+    }
+
+    /**
+     * Accessor method to get a name by its id
+     * @param id int: the id of the name
+     * @return String: the location name
+     */
+    public String getName(int id)
+    {
+        return names.get( id );
+    }
+
+    /**
+     * Method to find the names that contain some text, ignoring case
+     * Text of at least three characters only checks the names that hold its rarest trigram
+     * @param text String: the text to look for
+     * @return IntList: the ids of the names containing the text, in increasing order
+     */
+    public IntList search(String text)
+    {
+        IntList found = new IntList();
+        IntList candidates = null;              // names that may hold the text, or null to check every name
+        IntList list;
+        String upperText = text.toUpperCase();
+        int id;
+
+        for (int start = 0; start + GRAM_LENGTH <= upperText.length(); start++)
+        {
+            list = trigramIds.get( upperText.substring( start, start + GRAM_LENGTH ) );
+            if (list == null)
+            {
+                list = new IntList();           // no name holds this trigram, so none holds the text
+            }
+            if (candidates == null || list.size() < candidates.size())
+            {
+                candidates = list;
+            }
+        }
+
+        for (int k = 0; k < (candidates == null ? upperNames.size() : candidates.size()); k++)
+        {
+            id = candidates == null ? k : candidates.get( k );
+            if (upperNames.get( id ).contains( upperText ))
+            {
+                found.add( id );
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Method to find the names that hold every word of some text as a whole word, in any order, ignoring case
+     * @param text String: the words to look for, separated by anything other than letters and digits
+     * @return IntList: the ids of the names holding every word, in increasing order, or every id if there are no words
+     */
+    public IntList searchWords(String text)
+    {
+        IntList found = new IntList();
+        ArrayList<IntList> lists = new ArrayList<>();
+        IntList shortest = null;
+        IntList list;
+        boolean inAll;
+        int id;
+
+        for (String word : words( text.toUpperCase() ))
+        {
+            list = wordIds.get( word );
+            if (list == null)
+            {
+                list = new IntList();           // no name holds this word
+            }
+            lists.add( list );
+            if (shortest == null || list.size() < shortest.size())
+            {
+                shortest = list;
+            }
+        }
+
+        for (int k = 0; k < (shortest == null ? names.size() : shortest.size()); k++)
+        {
+            id = shortest == null ? k : shortest.get( k );
+            inAll = true;
+            for (int w = 0; w < lists.size() && inAll; w++)
+            {
+                inAll = lists.get( w ).sortedContains( id );
+            }
+            if (inAll)
+            {
+                found.add( id );
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Method to split text into its words, the runs of letters and digits
+     * @param text String: the text
+     * @return ArrayList<String>: the words in the order they appear
+     */
+    public static ArrayList<String> words(String text)
+    {
+        ArrayList<String> words = new ArrayList<>();
+        int start = -1;                         // start of the word being read, or -1 between words
+
+        for (int i = 0; i <= text.length(); i++)
+        {
+            if (i < text.length() && Character.isLetterOrDigit( text.charAt( i ) ))
+            {
+                if (start < 0)
+                {
+                    start = i;
+                }
+            }
+            else if (start >= 0)
+            {
+                words.add( text.substring( start, i ) );
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Method to add a name id to the list of a key in an inverted index
+     * Ids are added in increasing order, so a key found twice in one name is only listed once
+     * @param index HashMap<String, IntList>: the inverted index
+     * @param key String: the word or trigram
+     * @param id int: the id of the name holding the key
+     */
+    private static void addKey(HashMap<String, IntList> index, String key, int id)
+    {
+        IntList list = index.get( key );
+
+        if (list == null)
+        {
+            list = new IntList( 1 );
+            index.put( key, list );
+        }
+        if (list.size() == 0 || list.get( list.size() - 1 ) != id)
+        {
+            list.add( id );
+        }
+    }
+}
@@ -0,0 +1,511 @@
+/************************************************************************************************
+ *  This class handles grouping quake records and adding up each group
+ *
+ *  Records are grouped by the day, month or year of the quake, or by the cell of the QuakeGridIndex
+ *  they are in.  For each group the number of quakes, the largest magnitude and the mean magnitude
+ *  are kept.
+ *
+ *  Each group is given a slot number worked out from the packed date or the location with a little
+ *  arithmetic, and the totals are kept in primitive arrays indexed by the slot.  Adding a record reads
+ *  two columns of the store and updates three arrays, with no hashing and no objects created.
+ *  The arrays grow to cover the slots seen so far, which for dates is a few thousand per century.
+ *  If the slots are spread too far apart for that, as with a date centuries away from the rest, a
+ *  HashMap gives each slot its own element of the arrays instead.
+ *
+ *  Records with a date that is not valid are counted in a group of their own, so a month or day out
+ *  of range is not added to another date.
+ *
+ *  Totals made from different records can be merged, so a large catalog can be split across threads
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class QuakeAggregate
+{
+    // ways to group the records
+    public static final int BY_DAY = 0, BY_MONTH = 1, BY_YEAR = 2, BY_CELL = 3;
+    public static final int INVALID_KEY = -1;           // key of the group of records with dates that are not valid
+    private static final int INITIAL_SLOTS = 16;
+    private static final int MAX_DENSE_SLOTS = 1 << 20;  // most slots covered by the arrays before using a HashMap
+    private static final int INVALID_DATE = -1;         // slot of records with dates that are not valid
+
+    private int groupBy;
+    private int firstSlot = 0;                  // slot of element 0 of the arrays
+    private int[] counts = new int[0];          // element i is the number of records in slot firstSlot + i
+    private double[] maxMags = new double[0];   // element i is the largest magnitude in slot firstSlot + i
+    private double[] sumMags = new double[0];   // element i is the total magnitude in slot firstSlot + i
+    private HashMap<Integer, Integer> elements = null;  // element of each slot, once the slots are too spread out
+    private IntList slots = null;               // element i is in slot slots.get( i ) when the HashMap is used
+    private int invalidCount = 0;               // totals of the records with dates that are not valid
+    private double invalidMaxMag = Double.NEGATIVE_INFINITY;
+    private double invalidSumMag = 0.0;
+    private IntList groups = null;              // elements holding records in order of their slots, made when first needed
+
+    /**
+     * Constructor to create empty totals
+     * @param groupBy int: how to group the records, BY_DAY, BY_MONTH, BY_YEAR or BY_CELL
+     */
+    public QuakeAggregate(int groupBy)
+    {
+        if (groupBy < BY_DAY || groupBy > BY_CELL)
+        {
+            throw new IllegalArgumentException( "Not a way to group records: " + groupBy );
+        }
+        this.groupBy = groupBy;
+    }
+
+    /**
+     * Accessor method to get how the records are grouped
+     * @return int: BY_DAY, BY_MONTH, BY_YEAR or BY_CELL
+     */
+    public int getGroupBy()
+    {
+        return groupBy;
+    }
+
+    /**
+     * Method to add a range of records to the totals
+     * @param store QuakeStore: the store holding the records
+     * @param ids IntList: the indexes of the records, or null for the records from index from to index to - 1
+     * @param from int: the first position in the list to add
+     * @param to int: the position after the last one to add
+     */
+    public void addRecords(QuakeStore store, IntList ids, int from, int to)
+    {
+        int id;
+        double mag;
+
+        for (int k = from; k < to; k++)
+        {
+            id = ids == null ? k : ids.get( k );
+            mag = store.getRichter( id );
+            addTotals( slotOf( store, id ), 1, mag, mag );
+        }
+        groups = null;
+    }
+
+    /**
+     * Method to add the totals of other records grouped the same way to these totals
+     * @param other QuakeAggregate: the other totals
+     */
+    public void merge(QuakeAggregate other)
+    {
+        for (int i = 0; i < other.counts.length; i++)
+        {
+            if (other.counts[i] > 0)
+            {
+                addTotals( other.slotAt( i ), other.counts[i], other.sumMags[i], other.maxMags[i] );
+            }
+        }
+        if (other.invalidCount > 0)
+        {
+            addTotals( INVALID_DATE, other.invalidCount, other.invalidSumMag, other.invalidMaxMag );
+        }
+        groups = null;
+    }
+
+    /**
+     * Accessor method to get the number of groups holding records
+     * @return int: the number of groups
+     */
+    public int size()
+    {
+        return getGroups().size();
+    }
+
+    /**
+     * Accessor method to get the key of a group
+     * Groups are numbered from 0 in increasing order of their keys
+     * @param g int: the number of the group
+     * @return int: the packed date yyyymmdd for a day, yyyymm for a month, yyyy for a year or the grid cell number,
+     *              or INVALID_KEY for the records with dates that are not valid
+     */
+    public int getKey(int g)
+    {
+        int element = getGroups().get( g );
+        int slot;
+        int key;
+
+        if (element == INVALID_DATE)
+        {
+            key = INVALID_KEY;
+        }
+        else
+        {
+            slot = slotAt( element );
+            switch (groupBy)
+            {
+                case BY_DAY:
+                    key = Dates.encode( slot / 372, slot / 31 % 12 + 1, slot % 31 + 1 );
+                    break;
+                case BY_MONTH:
+                    key = slot / 12 * 100 + slot % 12 + 1;
+                    break;
+                default:
+                    key = slot;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Accessor method to get the number of records in a group
+     * @param g int: the number of the group
+     * @return int: the number of records
+     */
+    public int getCount(int g)
+    {
+        int element = getGroups().get( g );
+
+        return element == INVALID_DATE ? invalidCount : counts[element];
+    }
+
+    /**
+     * Accessor method to get the largest magnitude in a group
+     * @param g int: the number of the group
+     * @return double: the largest magnitude
+     */
+    public double getMaxMagnitude(int g)
+    {
+        int element = getGroups().get( g );
+
+        return element == INVALID_DATE ? invalidMaxMag : maxMags[element];
+    }
+
+    /**
+     * Accessor method to get the mean magnitude of a group
+     * @param g int: the number of the group
+     * @return double: the mean magnitude
+     */
+    public double getMeanMagnitude(int g)
+    {
+        int element = getGroups().get( g );
+
+        return element == INVALID_DATE ? invalidSumMag / invalidCount : sumMags[element] / counts[element];
+    }
+
+    /**
+     * Accessor method to get a description of the key of a group
+     * @param g int: the number of the group
+     * @return String: the date as YYYY-MM-DD, YYYY-MM or YYYY, "Invalid date", or the latitudes and longitudes of the cell
+     */
+    public String getLabel(int g)
+    {
+        int key = getKey( g );
+        String label;
+        double lat, lon;
+
+        switch (key == INVALID_KEY ? INVALID_KEY : groupBy)
+        {
+            case INVALID_KEY:
+                label = "Invalid date";
+                break;
+            case BY_DAY:
+                label = String.format( "%04d-%02d-%02d", Dates.decodeYear( key ), Dates.decodeMonth( key ),
+                        Dates.decodeDay( key ) );
+                break;
+            case BY_MONTH:
+                label = String.format( "%04d-%02d", key / 100, key % 100 );
+                break;
+            case BY_YEAR:
+                label = String.format( "%04d", key );
+                break;
+            default:
+                lat = key / QuakeGridIndex.COLUMNS * QuakeGridIndex.CELL_SIZE - 90;
+                lon = key % QuakeGridIndex.COLUMNS * QuakeGridIndex.CELL_SIZE - 180;
+                label = String.format( "lat %.1f to %.1f, lon %.1f to %.1f", lat, lat + QuakeGridIndex.CELL_SIZE,
+                        lon, lon + QuakeGridIndex.CELL_SIZE );
+        }
+        return label;
+    }
+
+    /**
+     * Method to write the groups with a result writer, one line for each group followed by the number of groups
+     * @param output QuakeResultWriter: the writer to add the lines to
+     */
+    public void writeGroups(QuakeResultWriter output)
+    {
+        output.writeLine( String.format( "%-34s %8s %8s %8s", "Group", "Quakes", "Max", "Mean" ) );
+        for (int g = 0; g < size(); g++)
+        {
+            output.writeLine( String.format( "%-34s %8d %8.2f %8.2f", getLabel( g ), getCount( g ),
+                    getMaxMagnitude( g ), getMeanMagnitude( g ) ) );
+        }
+        output.writeLine( size() + " groups found." );
+    }
+
+    /**
+     * Method to find the slot of the group of a record
+     * Days are numbered 31 to a month so the date can be found again from the slot
+     * @param store QuakeStore: the store holding the record
+     * @param id int: the index of the record
+     * @return int: the slot, or INVALID_DATE if the record is grouped by a date that is not valid
+     */
+    private int slotOf(QuakeStore store, int id)
+    {
+        int date, year, month, day;
+        int slot;
+
+        if (groupBy == BY_CELL)
+        {
+            slot = QuakeGridIndex.cellOf( store.getLatitude( id ), store.getLongitude( id ) );
+        }
+        else
+        {
+            date = store.getPackedDate( id );
+            year = Dates.decodeYear( date );
+            month = Dates.decodeMonth( date );
+            day = Dates.decodeDay( date );
+
+            if (!Dates.isValid( year, month, day ))
+            {
+                slot = INVALID_DATE;
+            }
+            else if (groupBy == BY_YEAR)
+            {
+                slot = year;
+            }
+            else if (groupBy == BY_MONTH)
+            {
+                slot = year * 12 + month - 1;
+            }
+            else
+            {
+                slot = (year * 12 + month - 1) * 31 + day - 1;
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Method to add totals to the group of a slot
+     * @param slot int: the slot of the group, or INVALID_DATE
+     * @param count int: the number of records to add
+     * @param sumMag double: the total magnitude of the records
+     * @param maxMag double: the largest magnitude of the records
+     */
+    private void addTotals(int slot, int count, double sumMag, double maxMag)
+    {
+        int element;
+
+        if (slot == INVALID_DATE)
+        {
+            invalidCount += count;
+            invalidSumMag += sumMag;
+            if (maxMag > invalidMaxMag)
+            {
+                invalidMaxMag = maxMag;
+            }
+        }
+        else
+        {
+            element = elementOf( slot );
+            counts[element] += count;
+            sumMags[element] += sumMag;
+            if (maxMag > maxMags[element])
+            {
+                maxMags[element] = maxMag;
+            }
+        }
+    }
+
+    /**
+     * Method to find the element of the arrays holding the totals of a slot, making room for it if needed
+     * When the arrays would have to cover more than MAX_DENSE_SLOTS slots, the totals are moved so a HashMap
+     * gives the element of each slot
+     * @param slot int: the slot
+     * @return int: the element of the arrays
+     */
+    private int elementOf(int slot)
+    {
+        Integer element;
+        long span;
+
+        if (elements == null && (slot < firstSlot || slot >= firstSlot + counts.length))
+        {
+            span = (long) Math.max( slot, firstSlot + counts.length - 1 ) - Math.min( slot, firstSlot ) + 1;
+            if (counts.length > 0 && span > MAX_DENSE_SLOTS)
+            {
+                makeSparse();
+            }
+            else
+            {
+                makeRoom( slot );
+            }
+        }
+
+        if (elements == null)
+        {
+            element = slot - firstSlot;
+        }
+        else
+        {
+            element = elements.get( slot );
+            if (element == null)
+            {
+                element = slots.size();
+                slots.add( slot );
+                elements.put( slot, element );
+                if (element >= counts.length)
+                {
+                    counts = moveTo( counts, firstSlot, counts.length * 2 );
+                    sumMags = moveTo( sumMags, firstSlot, counts.length, 0.0 );
+                    maxMags = moveTo( maxMags, firstSlot, counts.length, Double.NEGATIVE_INFINITY );
+                }
+            }
+        }
+        return element;
+    }
+
+    /**
+     * Method to get the slot of an element of the arrays
+     * @param element int: the element
+     * @return int: the slot whose totals are in the element
+     */
+    private int slotAt(int element)
+    {
+        return elements == null ? firstSlot + element : slots.get( element );
+    }
+
+    /**
+     * Method to grow the arrays so they cover a slot
+     * They at least double in size, so adding records in any order copies each total only a few times
+     * @param slot int: the slot that must be covered
+     */
+    private void makeRoom(int slot)
+    {
+        int first, last, length;
+
+        if (counts.length == 0)
+        {
+            first = slot;
+            length = INITIAL_SLOTS;
+        }
+        else
+        {
+            length = Math.min( counts.length * 2, MAX_DENSE_SLOTS );
+            first = Math.min( firstSlot, slot );
+            last = Math.max( firstSlot + counts.length - 1, slot );
+            if (slot < firstSlot)                       // leave room below as well, for dates added backwards
+            {
+                first = Math.min( first, last - length + 1 );
+            }
+            length = Math.max( length, last - first + 1 );
+        }
+
+        counts = moveTo( counts, first, length );
+        sumMags = moveTo( sumMags, first, length, 0.0 );
+        maxMags = moveTo( maxMags, first, length, Double.NEGATIVE_INFINITY );
+        firstSlot = first;
+    }
+
+    /**
+     * Method to move the totals of the slots holding records to the start of the arrays, each slot's element
+     * then being found with a HashMap, so the arrays only need room for the slots in use
+     */
+    private void makeSparse()
+    {
+        int used = 0;
+
+        elements = new HashMap<>();
+        slots = new IntList();
+        for (int i = 0; i < counts.length; i++)
+        {
+            if (counts[i] > 0)
+            {
+                slots.add( firstSlot + i );
+                elements.put( firstSlot + i, used );
+                counts[used] = counts[i];
+                sumMags[used] = sumMags[i];
+                maxMags[used] = maxMags[i];
+                used++;
+            }
+        }
+        Arrays.fill( counts, used, counts.length, 0 );
+        Arrays.fill( sumMags, used, counts.length, 0.0 );
+        Arrays.fill( maxMags, used, counts.length, Double.NEGATIVE_INFINITY );
+        firstSlot = 0;
+    }
+
+    /**
+     * Method to copy the counts into a new array that starts at another slot
+     * @param old int[]: the counts
+     * @param first int: the slot of element 0 of the new array
+     * @param length int: the length of the new array
+     * @return int[]: the new array
+     */
+    private int[] moveTo(int[] old, int first, int length)
+    {
+        int[] moved = new int[length];
+
+        if (old.length > 0)
+        {
+            System.arraycopy( old, 0, moved, firstSlot - first, old.length );
+        }
+        return moved;
+    }
+
+    /**
+     * Method to copy magnitude totals into a new array that starts at another slot
+     * @param old double[]: the totals
+     * @param first int: the slot of element 0 of the new array
+     * @param length int: the length of the new array
+     * @param empty double: the value of a slot with no records
+     * @return double[]: the new array
+     */
+    private double[] moveTo(double[] old, int first, int length, double empty)
+    {
+        double[] moved = new double[length];
+
+        Arrays.fill( moved, empty );
+        if (old.length > 0)
+        {
+            System.arraycopy( old, 0, moved, firstSlot - first, old.length );
+        }
+        return moved;
+    }
+
+    /**
+     * Method to get the groups that hold records, listing them if the totals changed
+     * @return IntList: the elements of the arrays holding records in increasing order of their slots,
+     *                  after INVALID_DATE if there are records with dates that are not valid
+     */
+    private IntList getGroups()
+    {
+        IntList sorted;
+
+        if (groups == null)
+        {
+            groups = new IntList();
+            if (invalidCount > 0)
+            {
+                groups.add( INVALID_DATE );
+            }
+
+            if (elements == null)
+            {
+                for (int i = 0; i < counts.length; i++)
+                {
+                    if (counts[i] > 0)
+                    {
+                        groups.add( i );
+                    }
+                }
+            }
+            else
+            {
+                sorted = new IntList( Math.max( 1, slots.size() ) );
+                sorted.addAll( slots );
+                sorted.sort();
+                for (int k = 0; k < sorted.size(); k++)
+                {
+                    groups.add( elements.get( sorted.get( k ) ) );
+                }
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,455 @@
+/************************************************************************************************
+ *  This class handles merging several quake data files into one QuakeData in time order
+ *
+ *  It is an external merge sort.  Each file is parsed into a buffer store, and whenever the buffer
+ *  holds runSize records they are sorted by timestamp and written to a temporary run file.  The buffer is
+ *  checked after each block of the file is parsed, so it holds no more than runSize records and one block
+ *  before the merge.  The records left in the buffer at the end form
+ *  one last run that is sorted in memory.  The runs are then merged with a priority queue holding the
+ *  next record of each run, and the records are added to the QuakeData in order.
+ *
+ *  The sort is stable: records with the same timestamp keep the order of the files and of the lines
+ *  in each file, since runs are made in that order and ties are broken by run number.
+ *
+ *  Run file layout, written with DataOutputStream:
+ *    number of records, then for each record the packed date, packed time, latitude, longitude,
+ *    richter and location name
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+
+public class QuakeCatalogMerger
+{
+    public static final int DEFAULT_RUN_SIZE = 1 << 20;    // records sorted in memory before they are written to a run
+    private static final int BUFFER_SIZE = 1 << 20;         // bytes read from a data file at a time
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;  // bytes buffered for each run file
+
+    private int runSize;
+    private File tempDirectory;                 // where run files are written, or null for the system default
+    private QuakeStore buffer = new QuakeStore();           // records parsed but not yet written to a run
+    private ArrayList<File> runFiles = new ArrayList<>();
+    private int numOfRecords, numOfRecordsMissed;
+
+    /**
+     * No-argument constructor creates a merger that sorts DEFAULT_RUN_SIZE records at a time
+     * and writes its run files to the system temporary directory
+     */
+    public QuakeCatalogMerger()
+    {
+        this( DEFAULT_RUN_SIZE, null );
+    }
+
+    /**
+     * Constructor to create a merger with a memory budget
+     * @param runSize int: the number of records sorted in memory before they are written to a run file, at least 1
+     * @param tempDirectory File: the directory for the run files, or null for the system temporary directory
+     */
+    public QuakeCatalogMerger(int runSize, File tempDirectory)
+    {
+        this.runSize = Math.max( 1, runSize );
+        this.tempDirectory = tempDirectory;
+        numOfRecords = 0;
+        numOfRecordsMissed = 0;
+    }
+
+    /**
+     * Accessor method to get the number of good records read from all the files added
+     * @return int: the number of records
+     */
+    public int getNumOfRecords()
+    {
+        return numOfRecords;
+    }
+
+    /**
+     * Accessor method to get the number of lines of all the files added that could not be parsed into records
+     * @return int: the number of bad records
+     */
+    public int getNumOfRecordsMissed()
+    {
+        return numOfRecordsMissed;
+    }
+
+    /**
+     * Accessor method to get the number of run files written so far
+     * @return int: the number of run files
+     */
+    public int getNumOfRunFiles()
+    {
+        return runFiles.size();
+    }
+
+    /**
+     * Method to read the records of a quake data file, writing sorted runs whenever the buffer is full
+     * @param fileName String: the name of the file containing quake data records
+     * @throws IOException if the file cannot be read or a run file cannot be written
+     */
+    public void addFile(String fileName) throws IOException
+    {
+        QuakeParser parser = new QuakeParser( buffer );
+        ByteBuffer bytes = ByteBuffer.allocate( BUFFER_SIZE );
+
+        try (FileChannel channel = FileChannel.open( Paths.get( fileName ), StandardOpenOption.READ ))
+        {
+            while (channel.read( bytes ) >= 0)
+            {
+                bytes.flip();
+                parser.parseLines( bytes, false );
+
+                if (bytes.position() == 0 && bytes.limit() == bytes.capacity())
+                {
+                    // a single line fills the buffer, so make room for the rest of it
+                    bytes = ByteBuffer.allocate( bytes.capacity() * 2 ).put( bytes );
+                }
+                else
+                {
+                    bytes.compact();            // keep the partial line for the next read
+                }
+
+                if (buffer.size() >= runSize)
+                {
+                    writeRun();
+                }
+            }
+            bytes.flip();
+            parser.parseLines( bytes, true );
+        }
+
+        numOfRecords += parser.getNumOfRecords();
+        numOfRecordsMissed += parser.getNumOfRecordsMissed();
+    }
+
+    /**
+     * Method to merge the records of every file added into a new QuakeData
+     * The QuakeData keeps the order of its records when one is removed
+     * @return QuakeData: the records of all the files, in time order
+     * @throws IOException if a run file cannot be read
+     */
+    public QuakeData merge() throws IOException
+    {
+        QuakeData data = new QuakeData();
+
+        data.setKeepOrder( true );
+        mergeInto( data );
+        return data;
+    }
+
+    /**
+     * Method to merge the records of every file added and add them to a QuakeData in time order
+     * If the QuakeData has a duplicate tolerance, repeats of an event in several files are only added once
+     * The run files are deleted and the merger is empty afterwards, so it can be used for other files
+     * @param data QuakeData: the data to add the records to, which should be empty to be in time order
+     * @return int: the number of records added
+     * @throws IOException if a run file cannot be read
+     */
+    public int mergeInto(QuakeData data) throws IOException
+    {
+        PriorityQueue<Run> heads = new PriorityQueue<>();     // the run with the earliest next record first
+        ArrayList<Run> runs = new ArrayList<>();
+        Run run;
+        int added = 0;
+
+        try
+        {
+            for (int r = 0; r < runFiles.size(); r++)
+            {
+                runs.add( new FileRun( runFiles.get( r ), r ) );
+            }
+            runs.add( new MemoryRun( buffer, runFiles.size() ) );     // the records left in the buffer come last
+
+            for (Run start : runs)
+            {
+                if (start.next())
+                {
+                    heads.add( start );
+                }
+            }
+
+            while (!heads.isEmpty())
+            {
+                run = heads.poll();
+                if (data.addRecord( run.date, run.time, run.lat, run.lon, run.ric, run.location ))
+                {
+                    added++;
+                }
+                if (run.next())
+                {
+                    heads.add( run );
+                }
+            }
+        }
+        finally
+        {
+            for (Run done : runs)
+            {
+                done.close();
+            }
+            for (File file : runFiles)
+            {
+                file.delete();
+            }
+            runFiles.clear();
+            buffer.clear();
+        }
+
+        return added;
+    }
+
+    /**
+     * Method to sort the records in the buffer and write them to a new run file, then empty the buffer
+     * @throws IOException if the run file cannot be written
+     */
+    private void writeRun() throws IOException
+    {
+        File file = File.createTempFile( "quakerun", ".tmp", tempDirectory );
+        int[] order = sortedOrder( buffer );
+        int id;
+
+        file.deleteOnExit();
+        runFiles.add( file );
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream( new FileOutputStream( file ), STREAM_BUFFER_SIZE ) ))
+        {
+            out.writeInt( order.length );
+            for (int k = 0; k < order.length; k++)
+            {
+                id = order[k];
+                out.writeInt( buffer.getPackedDate( id ) );
+                out.writeInt( buffer.getPackedTime( id ) );
+                out.writeDouble( buffer.getLatitude( id ) );
+                out.writeDouble( buffer.getLongitude( id ) );
+                out.writeDouble( buffer.getRichter( id ) );
+                out.writeUTF( buffer.getLocation( id ) );
+            }
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Method to find the order of the records of a store by timestamp with a stable merge sort
+     * @param store QuakeStore: the records to sort
+     * @return int[]: the indexes of the records, earliest first, with ties in the order they are stored
+     */
+    private static int[] sortedOrder(QuakeStore store)
+    {
+        int n = store.size();
+        long[] keys = new long[n];
+        int[] order = new int[n];
+        int[] other = new int[n];
+        int[] swap;
+        int left, right, middle, end, out;
+
+        for (int i = 0; i < n; i++)
+        {
+            keys[i] = store.getTimestamp( i );
+            order[i] = i;
+        }
+
+        // merge runs of width 1, 2, 4, ... from order into other, then swap the arrays
+        for (int width = 1; width < n; width *= 2)
+        {
+            for (int start = 0; start < n; start += 2 * width)
+            {
+                middle = Math.min( start + width, n );
+                end = Math.min( start + 2 * width, n );
+                left = start;
+                right = middle;
+                out = start;
+                while (left < middle && right < end)
+                {
+                    // take from the left on ties so equal timestamps keep their order
+                    if (keys[order[right]] < keys[order[left]])
+                    {
+                        other[out++] = order[right++];
+                    }
+                    else
+                    {
+                        other[out++] = order[left++];
+                    }
+                }
+                while (left < middle)
+                {
+                    other[out++] = order[left++];
+                }
+                while (right < end)
+                {
+                    other[out++] = order[right++];
+                }
+            }
+            swap = order;
+            order = other;
+            other = swap;
+        }
+        return order;
+    }
+
+    /**
+     * This class handles reading the records of one sorted run in order
+     * The fields hold the record most recently read by next
+     */
+    private static abstract class Run implements Comparable<Run>
+    {
+        protected int number;                   // runs with smaller numbers came first in the files
+        protected int date, time;
+        protected double lat, lon, ric;
+        protected String location;
+        protected long timestamp;
+
+        /**
+         * Method to read the next record of the run into the fields
+         * @return boolean: true if a record was read, false if the run has no more records
+         * @throws IOException if the run cannot be read
+         */
+        public abstract boolean next() throws IOException;
+
+        /**
+         * Method to release anything the run holds open
+         */
+        public void close()
+        {
+        }
+
+        /**
+         * Method to compare the next records of two runs
+         * @param other Run: the other run
+         * @return int: less than 0 if this run's record comes first, more than 0 if the other's does
+         */
+        @Override
+        public int compareTo(Run other)
+        {
+            int result = Long.compare( timestamp, other.timestamp );
+
+            if (result == 0)
+            {
+                result = Integer.compare( number, other.number );
+            }
+            return result;
+        }
+    }
+
+    /**
+     * This class handles reading a run from a run file
+     */
+    private static class FileRun extends Run
+    {
+        private DataInputStream in;
+        private int remaining;                  // records not read yet
+
+        /**
+         * Constructor to open a run file
+         * @param file File: the run file
+         * @param number int: the number of the run
+         * @throws IOException if the file cannot be opened
+         */
+        public FileRun(File file, int number) throws IOException
+        {
+            this.number = number;
+            in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ), STREAM_BUFFER_SIZE ) );
+            remaining = in.readInt();
+        }
+
+        /**
+         * Method to read the next record of the run file
+         * @return boolean: true if a record was read, false if the run has no more records
+         * @throws IOException if the file cannot be read
+         */
+        @Override
+        public boolean next() throws IOException
+        {
+            boolean found = remaining > 0;
+
+            if (found)
+            {
+                date = in.readInt();
+                time = in.readInt();
+                lat = in.readDouble();
+                lon = in.readDouble();
+                ric = in.readDouble();
+                location = in.readUTF();
+                timestamp = Dates.encodeTimestamp( date, time );
+                remaining--;
+            }
+            return found;
+        }
+
+        /**
+         * Method to close the run file
+         */
+        @Override
+        public void close()
+        {
+            try
+            {
+                in.close();
+            }
+            catch (IOException e)
+            {
+                // the file is only read, so nothing is lost if it does not close
+            }
+        }
+    }
+
+    /**
+     * This class handles reading a run from the records in a store, sorted in memory
+     */
+    private static class MemoryRun extends Run
+    {
+        private QuakeStore store;
+        private int[] order;
+        private int position = 0;
+
+        /**
+         * Constructor to sort the records of a store into a run
+         * @param store QuakeStore: the records of the run
+         * @param number int: the number of the run
+         */
+        public MemoryRun(QuakeStore store, int number)
+        {
+            this.number = number;
+            this.store = store;
+            order = sortedOrder( store );
+        }
+
+        /**
+         * Method to read the next record of the store in time order
+         * @return boolean: true if a record was read, false if the run has no more records
+         */
+        @Override
+        public boolean next()
+        {
+            boolean found = position < order.length;
+            int id;
+
+            if (found)
+            {
+                id = order[position];
+                date = store.getPackedDate( id );
+                time = store.getPackedTime( id );
+                lat = store.getLatitude( id );
+                lon = store.getLongitude( id );
+                ric = store.getRichter( id );
+                location = store.getLocation( id );
+                timestamp = store.getTimestamp( id );
+                position++;
+            }
+            return found;
+        }
+    }
+}
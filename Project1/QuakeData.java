@@ -1,24 +1,58 @@
 /************************************************************************************************
  *  This class handles the processing of a quake records
  *
- *  It contains an array to manage all the data records uploaded from a file
- *  It has method to allow searching for data records by region, date, and magnitude
+ *  It contains a columnar QuakeStore to manage all the data records uploaded from a file
+ *  After a file is parsed a binary snapshot of it is saved, and later starts load the snapshot instead
+ *  It has method to allow searching for data records by region, date, and magnitude, and for the quakes
+ *  nearest to a point or the largest quakes matching a query, and to count the quakes and total their
+ *  magnitudes by day, month, year or grid cell
  *  The methods may display to the console, or to a file based on the user's request
+ *  Searches that must check many records split the work across a ForkJoinPool
+ *
+ *  It is safe to use from many threads.  A read-write lock lets any number of searches read the records
+ *  at once, while adding or removing a record waits for the searches to finish and holds back new ones
+ *  until it is done, so a search never sees a record half changed and a steady stream of searches
+ *  cannot keep the records from being changed.  Records appended to the data file are parsed outside
+ *  of the lock and only added under it, so searches keep running while the file is read.
  *
  *  CST 283 Programming Assignment 1
  *  @author Michael Clinesmith
  ***********************************************************************************************/
 import javax.swing.JOptionPane;
+import java.util.ArrayList;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.io.*;
 import java.util.StringTokenizer;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class QuakeData
 {
-    private final int MAX_RECORDS = 130000;
-    private QuakeRecord[] records = new QuakeRecord[MAX_RECORDS];
-    private int numOfRecords, numOfRecordsMissed;
+    // ways QuakeData.find can choose to get the records to check for a query
+    private static final int SCAN_ALL = 0, USE_REGION_INDEX = 1, USE_DATE_INDEX = 2, USE_MAGNITUDE_INDEX = 3,
+            USE_LOCATION_INDEX = 4, USE_RADIUS_INDEX = 5;
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 15;  // records checked before a search is split
+
+    private QuakeStore records = new QuakeStore();
+    private QuakeGridIndex regionIndex = new QuakeGridIndex( records );   // finds records by latitude and longitude
+    private QuakeDateIndex dateIndex = new QuakeDateIndex( records );     // finds records by date
+    private QuakeMagnitudeIndex magnitudeIndex = new QuakeMagnitudeIndex( records );  // finds records by magnitude
+    private QuakeRecordIndex recordIndex = new QuakeRecordIndex( records );   // finds records by their data
+    private QuakeLocationIndex locationIndex = new QuakeLocationIndex( records );  // finds records by location
+    private QuakeEventIndex eventIndex = null;  // finds records of the same event to replace revisions, or null
+    private volatile int numOfRecords, numOfRecordsMissed;     // read without the lock, changed under the write lock
+    private volatile int numOfDuplicates = 0;  // records that replaced an earlier record of the same event
+    private volatile boolean keepOrder = false;    // true if removing a record must not change the order of the others
+    private QuakeFollower follower = null;     // reads records appended to the data file after it was loaded
+    private QuakeStore newRecords = new QuakeStore();   // records read by the follower, waiting to be added
+    private Timer followTimer = null;          // reads the data file in the background, or null
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();   // many readers of the records, or one writer
+    private volatile ForkJoinPool pool = ForkJoinPool.commonPool();    // checks records in parallel, or null
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;   // changed under the write lock
 
     /**
      * No-argument constructor
@@ -27,11 +61,16 @@ public class QuakeData
     {
         numOfRecords = 0;
         numOfRecordsMissed = 0;
+        records.addIndex( regionIndex );
+        records.addIndex( dateIndex );
+        records.addIndex( magnitudeIndex );
+        records.addIndex( recordIndex );
+        records.addIndex( locationIndex );
     }
 
     /**
      * Constructor with filename
-     * The constructor processes the data in the file name given, and if valid, creates an array of records
+     * The constructor processes the data in the file name given, and if valid, creates a store of records
      * containing the quake data
      * @param fileName String: the name of the file to open containing quake data records
      */
@@ -39,11 +78,17 @@ public class QuakeData
     {
         String message;
         File quakeData;                     // file that holds the quake data
-        Scanner inputFile;                  // used to get data from file
-        String inputLine;                   // String used to get a line of file input
+        QuakeMappedLoader loader;           // decodes the file straight into the record store
+        QuakeSnapshot snapshot = new QuakeSnapshot( records );   // binary copy of the file from an earlier start
+        boolean snapshotLoaded;
 
         numOfRecords = 0;
         numOfRecordsMissed = 0;
+        records.addIndex( regionIndex );            // indexes are updated as the records load
+        records.addIndex( dateIndex );
+        records.addIndex( magnitudeIndex );
+        records.addIndex( recordIndex );
+        records.addIndex( locationIndex );
 
         try                                         // catch if problems loading data
         {
@@ -58,46 +103,49 @@ public class QuakeData
                 System.exit(0);
             }
 
-            inputFile = new Scanner( quakeData );
+            try                                     // use the snapshot if it is current, otherwise parse the text
+            {
+                snapshotLoaded = snapshot.load( fileName );
+            }
+            catch (IOException e)
+            {
+                snapshotLoaded = false;
+            }
 
-            // Read input file while more data exist
-            // Read one line at a time (assuming each line contains one quake record)
-            while (inputFile.hasNext() && numOfRecords<MAX_RECORDS)
+            if (snapshotLoaded)
             {
-                try                                 // catch if problem with an individual data record
-                {
-                    inputLine = inputFile.nextLine();
-                    records[numOfRecords] = new QuakeRecord( inputLine );    // record processed in QuakeRecord class
-                                                                                // will throw IOException if problem with data
+                numOfRecords = snapshot.getNumOfRecords();
+                numOfRecordsMissed = snapshot.getNumOfRecordsMissed();
+                follower = new QuakeFollower( newRecords, fileName, snapshot.getSourceLength() );
+            }
+            else
+            {
+                // Read input file in parallel segments (assuming each line contains one quake record)
+                // A last line without a line break may still be being written, so the follower reads it later
+                loader = new QuakeMappedLoader( records );
+                loader.loadFile( fileName, false );
 
-                    numOfRecords++;
+                numOfRecords = loader.getNumOfRecords();
+                numOfRecordsMissed = loader.getNumOfRecordsMissed();
+                follower = new QuakeFollower( newRecords, fileName, loader.getNumOfBytes() );
+
+                try                                 // save a snapshot to speed up the next start
+                {
+                    snapshot.save( fileName, loader.getNumOfBytes(), numOfRecordsMissed );
                 }
                 catch (IOException e)
                 {
-                    message = "There was an error processing a record in the file " + fileName + ".\n" +
-                            "The record will be skipped.";
-
-                    JOptionPane.showMessageDialog( null, message, "Corrupted Data", JOptionPane.ERROR_MESSAGE );
-                    numOfRecordsMissed++;
+                    // the snapshot is only a speed up, so the data is still used if it cannot be saved
                 }
-
             }
 
-            // if extra records not saved because array storage is full, count records so it can be noted
-            if (inputFile.hasNext())
+            if (numOfRecordsMissed > 0)             // note corrupted records once rather than for every record
             {
-                message = "Quake data array is full.\n" +
-                        "The remaining records will be skipped.";
+                message = "There were " + numOfRecordsMissed + " errors processing records in the file " +
+                        fileName + ".\n" + "Those records were skipped.";
 
-                JOptionPane.showMessageDialog( null, message, "Storage Full", JOptionPane.ERROR_MESSAGE );
+                JOptionPane.showMessageDialog( null, message, "Corrupted Data", JOptionPane.ERROR_MESSAGE );
             }
-            while (inputFile.hasNext())
-            {
-                inputLine = inputFile.nextLine();
-                numOfRecordsMissed++;                           // record not saved since no room
-            }
-
-            inputFile.close();
         }
         catch (IOException e)  // if error loading data, give error message and end program
         {
@@ -110,8 +158,8 @@ public class QuakeData
     }
 
     /**
-     * Accessor method for getting the number of records in the QuakeRecord array
-     * @return int: The number of records in the array
+     * Accessor method for getting the number of records in the record store
+     * @return int: The number of records in the store
      */
     public int getNumOfRecords()
     {
@@ -119,8 +167,8 @@ public class QuakeData
     }
 
     /**
-     * Accessor method for getting the number of records that had problems and were not added to the QuakeRecord array
-     * @return int: The number of records not added to the array
+     * Accessor method for getting the number of records that had problems and were not added to the record store
+     * @return int: The number of records not added to the store
      */
     public int getNumOfRecordsMissed()
     {
@@ -128,28 +176,121 @@ public class QuakeData
     }
 
     /**
-     * Accessor method of getting the max size of the QuakeRecord array
-     * @return int: The maximum number of records that can be held in the array
+     * Accessor method for getting the number of records that replaced an earlier record of the same event
+     * @return int: The number of revised events
+     */
+    public int getNumOfDuplicates()
+    {
+        return numOfDuplicates;
+    }
+
+    /**
+     * Mutator method to keep only the latest revision of each event, in the store and in records added later
+     * A record is a revision if a stored record is within both tolerances of it.  Feeds send an event again
+     * when it is revised, so the revision is written over the stored record of its event, which keeps its
+     * place in the store.  The revisions already in the store, such as ones appended to the data file before
+     * it was loaded, are found in the order they are stored and removed in one pass that keeps the order
+     * of the other records.  Nothing is removed until this is called, so by default every record is kept
+     * @param seconds double: the most seconds between the times of two records of the same event
+     * @param degrees double: the most degrees of latitude, and of longitude, between two records of the same event
+     * @return int: the number of records in the store that were revisions of an earlier record
+     */
+    public int setDuplicateTolerance(double seconds, double degrees)
+    {
+        IntList repeats = new IntList();
+        boolean[] isRepeat;
+        int earlier;
+        lock.writeLock().lock();
+
+        try
+        {
+            if (eventIndex != null)
+            {
+                records.removeIndex( eventIndex );
+            }
+            eventIndex = new QuakeEventIndex( records, seconds, degrees );
+            records.addIndex( eventIndex );             // adds the records already in the store
+
+            isRepeat = new boolean[numOfRecords];
+            for (int i = 0; i < numOfRecords; i++)
+            {
+                earlier = eventIndex.findEarlierEvent( i, isRepeat );
+                if (earlier >= 0)
+                {
+                    records.replace( earlier, records.getPackedDate( i ), records.getPackedTime( i ),
+                            records.getLatitude( i ), records.getLongitude( i ), records.getRichter( i ),
+                            records.getLocationId( i ) );
+                    isRepeat[i] = true;
+                    repeats.add( i );
+                }
+            }
+            records.removeAllInOrder( repeats );
+            numOfRecords -= repeats.size();
+            numOfDuplicates += repeats.size();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        return repeats.size();
+    }
+
+    /**
+     * Mutator method to stop matching revised events, so every record added later is stored as a new record
+     */
+    public void clearDuplicateTolerance()
+    {
+        lock.writeLock().lock();
+
+        try
+        {
+            if (eventIndex != null)
+            {
+                records.removeIndex( eventIndex );
+                eventIndex = null;
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Accessor method of getting the max number of records that can be stored
+     * The store grows as records are added, so the only limit is the largest int index
+     * @return int: The maximum number of records that can be held
      */
     public int getMAX_RECORDS()
     {
-        return MAX_RECORDS;
+        return Integer.MAX_VALUE;
     }
 
     /**
-     * Accessor method for getting an array record
-     * @param i int: The index number for the record in the QuakeRecord array
-     * @return QuakeRecord: The deep copy of the record stored in the QuakeRecord array
+     * Accessor method for getting a stored record
+     * To read many records without copying each one use forEachRecord instead
+     * @param i int: The index number for the record in the record store
+     * @return QuakeRecord: The deep copy of the record stored in the record store
      */
     public QuakeRecord getRecord(int i)
     {
-        QuakeRecord rec;
+        QuakeRecord rec = null;
+        lock.readLock().lock();
 
-        if ( i>=0 && i<numOfRecords)
+        try
+        {
+            if ( i>=0 && i<numOfRecords)
+            {
+                rec = records.getRecord( i );
+            }
+        }
+        finally
         {
-            rec = new QuakeRecord( records[i] );
+            lock.readLock().unlock();
         }
-        else
+
+        if (rec == null)
         {
             rec = new QuakeRecord();
             rec.setLocation( "Invalid Record" );
@@ -158,52 +299,218 @@ public class QuakeData
     }
 
     /**
-     * Method to add a record to the QuakeRecords array
+     * Method to pass every record to a visitor, in the order they are stored
+     * One view is moved from record to record, so no objects are created for the records.  The read lock is
+     * held until every record is visited, so the visitor must not add or remove records
+     * @param visitor QuakeRecordVisitor: The code to call with a view of each record
+     */
+    public void forEachRecord(QuakeRecordVisitor visitor)
+    {
+        QuakeRecordView view = new QuakeRecordView( records );
+        lock.readLock().lock();
+
+        try
+        {
+            for (int i = 0; i < numOfRecords; i++)
+            {
+                visitor.visit( view.moveTo( i ) );
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to pass the records that match a query to a visitor, in the order they are stored
+     * The records are found and visited under one read lock, the same way as forEachRecord
+     * @param query QuakeQuery: The conditions the records must match
+     * @param visitor QuakeRecordVisitor: The code to call with a view of each matching record
+     */
+    public void forEachMatch(QuakeQuery query, QuakeRecordVisitor visitor)
+    {
+        QuakeRecordView view = new QuakeRecordView( records );
+        IntList found;
+        lock.readLock().lock();
+
+        try
+        {
+            found = findMatches( query );
+            for (int k = 0; k < found.size(); k++)
+            {
+                visitor.visit( view.moveTo( found.get( k ) ) );
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to add a record to the quake record store
+     * The store grows as needed, so the record is saved as a new record unless a duplicate tolerance is set
+     * and it revises an event already in the store, when it is written over the stored record instead
      * @param record QuakeRecord: Quake data stored in a QuakeRecord object
-     * @return boolean: true if the record was saved in the array, false if not
+     * @return boolean: true if the record was added as a new record, false if it replaced a revised event
      */
     public boolean addRecord(QuakeRecord record)
     {
-        boolean recordAdded=true;
+        return addRecord( QuakeStore.packDate( record.getYear(), record.getMonth(), record.getDay() ),
+                QuakeStore.packTime( record.getHour(), record.getMinute(), record.getSecond() ),
+                record.getLatitude(), record.getLongitude(), record.getRichter(), record.getLocation() );
+    }
+
+    /**
+     * Method to add a record that is already in packed form to the quake record store
+     * It is saved as a new record unless a duplicate tolerance is set and it revises an event already in the
+     * store, when it is written over the stored record instead
+     * @param date int: the date of the quake in the form yyyymmdd
+     * @param time int: the time of the quake in the form hhmmssSSS
+     * @param lat double: the latitude of the quake
+     * @param lon double: the longitude of the quake
+     * @param ric double: the magnitude of the quake
+     * @param location String: the location of the quake
+     * @return boolean: true if the record was added as a new record, false if it replaced a revised event
+     */
+    public boolean addRecord(int date, int time, double lat, double lon, double ric, String location)
+    {
+        boolean recordAdded;
+        lock.writeLock().lock();
 
-        if (numOfRecords==MAX_RECORDS)          // if array full, cannot add record
+        try
         {
-            numOfRecordsMissed++;
-            recordAdded = false;
+            recordAdded = addOrReplace( date, time, lat, lon, ric, records.internLocation( location ) );
+            if (recordAdded)
+            {
+                numOfRecords++;
+            }
         }
-        else
+        finally
         {
-            records[numOfRecords] = new QuakeRecord( record );          // makes a deep copy of the input record
-            numOfRecords++;
+            lock.writeLock().unlock();
         }
 
         return recordAdded;
     }
 
     /**
-     * Method to remove a record from the QuakeRecords array
-     * @param record QuakeRecord: The QuakeRecord object to remove from the QuakeRecords array
-     * @return boolean: true if the record was removed from the array, false if not
+     * Mutator method to choose how records are removed
+     * By default the last record is moved into the place of a removed record, which is O(1) but changes
+     * the order of the records.  Keeping the order moves every later record down one place instead, for
+     * data such as a catalog sorted by QuakeCatalogMerger that must stay in time order
+     * @param keepOrder boolean: true to keep the order of the records when one is removed
+     */
+    public void setKeepOrder(boolean keepOrder)
+    {
+        lock.writeLock().lock();
+
+        try
+        {
+            this.keepOrder = keepOrder;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Accessor method to check how records are removed
+     * @return boolean: true if removing a record keeps the order of the other records
+     */
+    public boolean isKeepOrder()
+    {
+        return keepOrder;
+    }
+
+    /**
+     * Method to remove a record from the record store
+     * The record is found with the hash index, so only records with the same hash code are compared
+     * @param record QuakeRecord: The QuakeRecord object to remove from the record store
+     * @return boolean: true if the record was removed from the store, false if not
      */
     public boolean removeRecord(QuakeRecord record)
     {
         boolean recordRemoved = false;
+        int i;
+        lock.writeLock().lock();
 
-        for(int i=0; i<numOfRecords && !recordRemoved; i++)
+        try
         {
-            if (record.isEqual( records[i] ))
+            i = recordIndex.find( record );                     // the first record with the same data
+            if (i >= 0)
             {
-                records[i] = records[numOfRecords-1];       // move the last record in the array to replace this record
+                if (keepOrder)
+                {
+                    records.removeAtInOrder( i );               // moves every later record down one place
+                }
+                else
+                {
+                    records.removeAt( i );                      // moves the last record in the store to replace this record
+                }
                 numOfRecords--;
                 recordRemoved = true;
             }
         }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
 
         return recordRemoved;
     }
 
+    /**
+     * Method to remove every record that matches a query from the record store
+     * The store is compacted once for all the records found, so the other records keep their order and
+     * removing many records takes time in proportion to the size of the store rather than one pass for each
+     * @param query QuakeQuery: The conditions the records to remove must match
+     * @return int: the number of records removed
+     */
+    public int removeMatches(QuakeQuery query)
+    {
+        IntList found;
+        lock.writeLock().lock();
+
+        try
+        {
+            found = findMatches( query );
+            records.removeAllInOrder( found );
+            numOfRecords -= found.size();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        return found.size();
+    }
+
+    /**
+     * Method to check if the record store holds a record with the same data as a record
+     * @param record QuakeRecord: The QuakeRecord object to look for
+     * @return boolean: true if a record with the same data is in the store, false if not
+     */
+    public boolean containsRecord(QuakeRecord record)
+    {
+        boolean found;
+        lock.readLock().lock();
+
+        try
+        {
+            found = recordIndex.contains( record );
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
     /**
      * Method to search the quake records by latitude and longitude and display them to the console
+     * If minLon is more than maxLon the area crosses longitude 180, and both sides are searched in one pass
      * @param minLat double: the minimum latitude in the area to retreive records
      * @param maxLat double: the maximum latitude in the area to retreive records
      * @param minLon double: the minimum longitude in the area to retreive records
@@ -214,11 +521,11 @@ public class QuakeData
     public boolean regionSearch(double minLat, double maxLat, double minLon, double maxLon)
     {
         boolean searchDone = true;
-        int count = 0;
         String message = "";            // used for printing messages to console
-        double recLat, recLong;         // temp variables for checking latitude and longitude in records
+        QuakeResultWriter output;       // collects the lines and writes them to the console in blocks
+        QuakeQuery query = new QuakeQuery();  // conditions for the search
         // check if parameters are valid
-        if( minLat >  maxLat || minLon > maxLon  || minLat < -90 || maxLat > 90 || minLon < -180 || maxLon > 180)
+        if( minLat >  maxLat || minLat < -90 || maxLat > 90 || minLon < -180 || maxLon > 180)
         {
             searchDone = false;
             message = "Latitude or longitude values not valid." +
@@ -227,19 +534,11 @@ public class QuakeData
         }
         else
         {
-            for(int i=0; i<numOfRecords; i++)
-            {
-                // if record in range, display it
-
-                recLat = records[i].getLatitude();
-                recLong = records[i].getLongitude();
-                if (minLat <= recLat && recLat <= maxLat && minLon <= recLong && recLong <= maxLon)
-                {
-                    System.out.println( records[i].toModString() );
-                    count++;
-                }
-            }
-            System.out.println( count + " records found." );
+            // display the records in range, found with the grid index
+            query.setRegion( minLat, maxLat, minLon, maxLon );
+            output = new QuakeResultWriter( new PrintWriter( System.out ) );
+            writeMatches( query, output );
+            output.flush();
         }
 
         return searchDone;
@@ -247,6 +546,7 @@ public class QuakeData
 
     /**
      * Method to search the quake records by latitude and longitude and store them in the given filename
+     * If minLon is more than maxLon the area crosses longitude 180, and both sides are searched in one pass
      * @param minLat double: the minimum latitude in the area to retreive records
      * @param maxLat double: the maximum latitude in the area to retreive records
      * @param minLon double: the minimum longitude in the area to retreive records
@@ -258,12 +558,11 @@ public class QuakeData
     public boolean regionSearch(double minLat, double maxLat, double minLon, double maxLon, String filename)
     {
         File quakeOutputFile;
-        PrintWriter outputFile;
+        QuakeResultWriter outputFile;          // collects the lines and writes them in blocks
         String message;
         String input;                   // used to get input from the user
-        double recLat, recLong;         // temp variables for checking latitude and longitude in records
+        QuakeQuery query = new QuakeQuery();  // conditions for the search
         boolean createFile = true;
-        int count = 0;
         Scanner keyboard = new Scanner( System.in );
 
         quakeOutputFile = new File(filename);
@@ -284,7 +583,7 @@ public class QuakeData
             }
         }
         //  check if parameter values for latitude and longitude are in range and valid
-        if( minLat >  maxLat || minLon > maxLon  || minLat < -90 || maxLat > 90 || minLon < -180 || maxLon > 180)
+        if( minLat >  maxLat || minLat < -90 || maxLat > 90 || minLon < -180 || maxLon > 180)
         {
             createFile = false;
             message = "Latitude or longitude values not valid." +
@@ -296,20 +595,11 @@ public class QuakeData
         {
             try                     // catch possible exception
             {
-                outputFile = new PrintWriter( quakeOutputFile );
+                outputFile = new QuakeResultWriter( new PrintWriter( quakeOutputFile ) );
 
-                for(int i=0; i<numOfRecords; i++)
-                {
-                    // if record in range, display it
-                    recLat = records[i].getLatitude();
-                    recLong = records[i].getLongitude();
-                    if (minLat <= recLat && recLat <= maxLat && minLon <= recLong && recLong <= maxLon)
-                    {
-                        outputFile.println( records[i].toModString() );
-                        count++;
-                    }
-                }
-                outputFile.println( count + " records found." );
+                // save the records in range, found with the grid index
+                query.setRegion( minLat, maxLat, minLon, maxLon );
+                writeMatches( query, outputFile );
                 outputFile.close();
 
                 message = "Records saved in file " + filename + ".\n";
@@ -337,7 +627,8 @@ public class QuakeData
     public boolean dateSearch(Dates minDate, Dates maxDate)
     {
         boolean searchDone = true;
-        int count = 0;
+        QuakeResultWriter output;       // collects the lines and writes them to the console in blocks
+        QuakeQuery query = new QuakeQuery();  // conditions for the search
         String message="";
 
         // check if date conditions valid and minDate not after maxDate
@@ -352,16 +643,11 @@ public class QuakeData
         {
             System.out.println( minDate.toModString() + " " + maxDate.toModString() );
 
-            for(int i=0; i<numOfRecords; i++)
-            {
-                // if record date is not before minDate or after maxDate
-                if (minDate.compareTo(records[i].getDate())<=0 && maxDate.compareTo( records[i].getDate())>=0)
-                {
-                    System.out.println( records[i].toModString() );
-                    count++;
-                }
-            }
-            System.out.println( count + " records found." );
+            // display the records not before minDate or after maxDate, found with the date index
+            query.setDates( minDate, maxDate );
+            output = new QuakeResultWriter( new PrintWriter( System.out ) );
+            writeMatches( query, output );
+            output.flush();
         }
 
         return searchDone;
@@ -378,11 +664,11 @@ public class QuakeData
     public boolean dateSearch(Dates minDate, Dates maxDate, String filename)
     {
         File quakeOutputFile;
-        PrintWriter outputFile;
+        QuakeResultWriter outputFile;          // collects the lines and writes them in blocks
         String message;
         String input;           // used to get input from the user
         boolean createFile = true;
-        int count = 0;
+        QuakeQuery query = new QuakeQuery();  // conditions for the search
         Scanner keyboard = new Scanner( System.in );
 
         quakeOutputFile = new File(filename);
@@ -416,18 +702,11 @@ public class QuakeData
         {
             try                     // catch possible exception
             {
-                outputFile = new PrintWriter( quakeOutputFile );
+                outputFile = new QuakeResultWriter( new PrintWriter( quakeOutputFile ) );
 
-                for (int i = 0; i < numOfRecords; i++)
-                {
-                    // if record date is not before minDate or after maxDate
-                    if (minDate.compareTo( records[i].getDate() ) <= 0 && maxDate.compareTo( records[i].getDate() ) >= 0)
-                    {
-                        outputFile.println( records[i].toModString() );
-                        count++;
-                    }
-                }
-                outputFile.println( count + " records found." );
+                // save the records not before minDate or after maxDate, found with the date index
+                query.setDates( minDate, maxDate );
+                writeMatches( query, outputFile );
                 outputFile.close();
 
                 message = "Records saved in file " + filename + ".\n";
@@ -455,7 +734,8 @@ public class QuakeData
     public boolean magnitudeSearch(double minMag)
     {
         boolean searchDone = true;
-        int count = 0;
+        QuakeResultWriter output;       // collects the lines and writes them to the console in blocks
+        QuakeQuery query = new QuakeQuery();  // conditions for the search
         String message="";
 
         // check if minimum magnitude in appropriate range
@@ -468,16 +748,11 @@ public class QuakeData
         }
         else
         {
-            for(int i=0; i<numOfRecords; i++)
-            {
-                // if magnitude is at least minumum specified
-                if (records[i].getRichter()>=minMag)
-                {
-                    System.out.println( records[i].toModString() );
-                    count++;
-                }
-            }
-            System.out.println( count + " records found." );
+            // display the records with magnitude at least minimum specified, found with the magnitude index
+            query.setMagnitudes( minMag, Double.POSITIVE_INFINITY );
+            output = new QuakeResultWriter( new PrintWriter( System.out ) );
+            writeMatches( query, output );
+            output.flush();
         }
 
         return searchDone;
@@ -493,11 +768,11 @@ public class QuakeData
     public boolean magnitudeSearch(double minMag, String filename)
     {
         File quakeOutputFile;
-        PrintWriter outputFile;
+        QuakeResultWriter outputFile;          // collects the lines and writes them in blocks
         String message;
         String input;           // used to get input from the user
         boolean createFile = true;
-        int count = 0;
+        QuakeQuery query = new QuakeQuery();  // conditions for the search
         Scanner keyboard = new Scanner( System.in );
 
         quakeOutputFile = new File(filename);
@@ -531,18 +806,11 @@ public class QuakeData
         {
             try                     // catch possible exception
             {
-                outputFile = new PrintWriter( quakeOutputFile );
+                outputFile = new QuakeResultWriter( new PrintWriter( quakeOutputFile ) );
 
-                for (int i = 0; i < numOfRecords; i++)
-                {
-                    // if magnitude is at least minumum specified
-                    if (records[i].getRichter()>=minMag)
-                    {
-                        outputFile.println( records[i].toModString() );
-                        count++;
-                    }
-                }
-                outputFile.println( count + " records found." );
+                // save the records with magnitude at least minimum specified, found with the magnitude index
+                query.setMagnitudes( minMag, Double.POSITIVE_INFINITY );
+                writeMatches( query, outputFile );
                 outputFile.close();
 
                 message = "Records saved in file " + filename + ".\n";
@@ -562,48 +830,1201 @@ public class QuakeData
     }
 
     /**
-     * Method to return information about the QuakeData object saved as a String
-     * It does not include the data saved in the records as part of the string
-     * @return String: A String listing the number of records, the number of records missed, the maximum array size,
-     *                  and the first record of the QuakeRecord array
+     * Method to find the quake records that match every condition of a query
+     * The index expected to give the fewest records is used to get the records to check, and only those
+     * records are checked against the rest of the conditions.  If no index helps, every record is checked
+     * When there are more records to check than the parallel threshold they are checked by a ForkJoinPool
+     * The indexes are only good until the next record is added or removed, so a thread that adds or removes
+     * records at the same time should use writeMatches or getMatches instead
+     * @param query QuakeQuery: The conditions the records must match
+     * @return IntList: The indexes of the matching records, in the order they are stored
      */
-    @Override
-    public String toString()
+    public IntList find(QuakeQuery query)
     {
-        String str="";
+        IntList found;
+        lock.readLock().lock();
+
+        try
+        {
+            found = findMatches( query );
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
 
-        str += "Number of records: " + numOfRecords;
-        str += "\nNumber of records missed: " + numOfRecordsMissed;
-        str += "\nMaximum number records that can be loaded: " + MAX_RECORDS;
+    /**
+     * Method to find the quake records that match a query and copy them into QuakeRecord objects
+     * The records are found and copied under one read lock, so they are all from the same state of the store
+     * @param query QuakeQuery: The conditions the records must match
+     * @return ArrayList<QuakeRecord>: Copies of the matching records, in the order they are stored
+     */
+    public ArrayList<QuakeRecord> getMatches(QuakeQuery query)
+    {
+        ArrayList<QuakeRecord> matches;
+        IntList found;
+        lock.readLock().lock();
 
-        if( numOfRecords>0)
+        try
         {
-            str += "\nFirst record: " + getRecord( 0 ).toString();
+            found = findMatches( query );
+            matches = new ArrayList<>( found.size() );
+            for (int k = 0; k < found.size(); k++)
+            {
+                matches.add( records.getRecord( found.get( k ) ) );
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
         }
+        return matches;
+    }
 
-        return str;
+    /**
+     * Method to find the quake records that match a query and write them with a result writer
+     * The records are found and formatted under one read lock, so records added or removed by another
+     * thread cannot change them before they are written
+     * @param query QuakeQuery: The conditions the records must match
+     * @param output QuakeResultWriter: The writer to add the records and the number found to
+     */
+    public void writeMatches(QuakeQuery query, QuakeResultWriter output)
+    {
+        lock.readLock().lock();
+
+        try
+        {
+            output.writeRecords( records, findMatches( query ) );
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
     }
 
     /**
-     * Method to return information about the QuakeData object saved as a String
-     * It does not include the data saved in the records as part of the string
-     * @return String: A String listing the number of records, the number of records missed, the maximum array size,
-     *                  and the first record of the QuakeRecord array
+     * Method to find the quake records nearest to a point that match a query
+     * Distances are measured along the surface of the earth, and the grid index is searched outward from
+     * the point, so only the cells near the point are looked at when there are quakes close to it
+     * @param lat double: the latitude of the point
+     * @param lon double: the longitude of the point
+     * @param k int: the number of records to find
+     * @param query QuakeQuery: conditions the records must also match, or null for any record
+     * @return IntList: the indexes of up to k records, nearest first
      */
-    public String toModString()
+    public IntList findNearest(double lat, double lon, int k, QuakeQuery query)
     {
-        String str="";
+        IntList found;
+        QuakeQuery prepared;            // the query ready for this search, or null
+        lock.readLock().lock();
+
+        try
+        {
+            prepared = query == null ? null : query.prepare( records );
+            found = regionIndex.nearest( lat, lon, k, prepared );
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
 
-        str += "Number of records: " + numOfRecords;
-        str += "\nNumber of records missed: " + numOfRecordsMissed;
-        str += "\nMaximum number records that can be loaded: " + MAX_RECORDS;
+    /**
+     * Method to find the largest quakes that match a query
+     * The records chosen by the query's best index are checked one at a time and offered to a heap that
+     * holds the k largest magnitudes found so far, so the time is O(n log k) and only k records are kept
+     * however many records match
+     * @param query QuakeQuery: The conditions the records must match, or null for every record
+     * @param k int: the number of records to find
+     * @return IntList: The indexes of up to k records, largest magnitude first, with ties in the order they are stored
+     */
+    public IntList findLargest(QuakeQuery query, int k)
+    {
+        IntList found;
+        lock.readLock().lock();
 
-        if( numOfRecords>0)
+        try
+        {
+            found = largestMatches( query, k );
+        }
+        finally
         {
-            str += "\nFirst record: " + getRecord( 0 ).toModString();
+            lock.readLock().unlock();
         }
+        return found;
+    }
 
-        return str;
+    /**
+     * Method to find the largest quakes that match a query and write them with a result writer, largest first
+     * The records are found and formatted under one read lock, so they are all from the same state of the store
+     * @param query QuakeQuery: The conditions the records must match
+     * @param k int: the number of records to write
+     * @param output QuakeResultWriter: The writer to add the records and the number found to
+     */
+    private void writeLargest(QuakeQuery query, int k, QuakeResultWriter output)
+    {
+        lock.readLock().lock();
+
+        try
+        {
+            output.writeRecords( records, largestMatches( query, k ) );
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to stream the records that match a query through a heap of the k largest magnitudes
+     * The caller must hold the read lock or the write lock
+     * @param query QuakeQuery: The conditions the records must match, or null for every record
+     * @param k int: the number of records to find
+     * @return IntList: The indexes of up to k records, largest magnitude first
+     */
+    private IntList largestMatches(QuakeQuery query, int k)
+    {
+        // the heap keeps the smallest keys, so the key is minus the magnitude, and needs no room past the record count
+        BoundedHeap largest = new BoundedHeap( Math.min( k, numOfRecords ) );
+        IntList candidates = null;      // records to check, or null to check every record
+        QuakeQuery prepared = null;     // the query ready for this search, or null
+        int length, id;
+
+        if (query != null)
+        {
+            prepared = query.prepare( records );
+            candidates = chooseCandidates( prepared );
+        }
+        length = candidates == null ? numOfRecords : candidates.size();
+
+        for (int j = 0; j < length; j++)
+        {
+            id = candidates == null ? j : candidates.get( j );
+            if (prepared == null || prepared.matches( records, id ))
+            {
+                largest.add( id, -records.getRichter( id ) );
+            }
+        }
+        return largest.takeSorted();
+    }
+
+    /**
+     * Method to group the quake records that match a query and total the magnitudes of each group
+     * The records are read straight from the columns of the store in one pass.  When there are more records
+     * than the parallel threshold the pass is split across the ForkJoinPool and the totals are merged
+     * @param query QuakeQuery: The conditions the records must match, or null for every record
+     * @param groupBy int: how to group the records, QuakeAggregate.BY_DAY, BY_MONTH, BY_YEAR or BY_CELL
+     * @return QuakeAggregate: the number of quakes, largest magnitude and mean magnitude of each group
+     */
+    public QuakeAggregate aggregate(QuakeQuery query, int groupBy)
+    {
+        QuakeAggregate totals;
+        IntList ids;                    // records to add, or null to add every record
+        int length;
+        lock.readLock().lock();
+
+        try
+        {
+            ids = query == null ? null : findMatches( query );
+            length = ids == null ? numOfRecords : ids.size();
+
+            if (pool != null && length > parallelThreshold)
+            {
+                totals = pool.invoke( new AggregateTask( records, ids, groupBy, 0, length, parallelThreshold ) );
+            }
+            else
+            {
+                totals = new QuakeAggregate( groupBy );
+                totals.addRecords( records, ids, 0, length );
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return totals;
+    }
+
+    /**
+     * Method to choose the records to check for a query and check them
+     * The caller must hold the read lock or the write lock
+     * @param query QuakeQuery: The conditions the records must match
+     * @return IntList: The indexes of the matching records, in the order they are stored
+     */
+    private IntList findMatches(QuakeQuery query)
+    {
+        IntList candidates;             // records to check, or null to check every record
+        IntList found;
+        QuakeQuery prepared;            // copy of the query ready for this search, so the query can be shared
+        int length;                     // number of records to check
+
+        prepared = query.prepare( records );
+        candidates = chooseCandidates( prepared );
+
+        if (candidates == null)
+        {
+            length = numOfRecords;
+        }
+        else
+        {
+            length = candidates.size();
+        }
+
+        // check the records, splitting the work across the pool if there are enough of them
+        if (pool != null && length > parallelThreshold)
+        {
+            found = pool.invoke( new ScanTask( records, prepared, candidates, 0, length, parallelThreshold ) );
+        }
+        else
+        {
+            found = scan( records, prepared, candidates, 0, length );
+        }
+
+        return found;
     }
 
+    /**
+     * Method to get the records to check for a query from the index expected to give the fewest records
+     * The caller must hold the read lock or the write lock
+     * @param query QuakeQuery: The conditions the records must match, as returned by QuakeQuery.prepare
+     * @return IntList: The indexes of the records to check, in the order they are stored, or null to check every record
+     */
+    private IntList chooseCandidates(QuakeQuery query)
+    {
+        IntList candidates = null;      // records to check, or null to check every record
+        int choice = SCAN_ALL;
+        int fewest = numOfRecords;      // records that would be checked by the choice
+        int estimate;
+
+        // choose the index expected to give the fewest records
+        if (query.hasRegion())
+        {
+            estimate = regionIndex.estimate( query.getMinLat(), query.getMaxLat(), query.getMinLon(), query.getMaxLon() );
+            if (estimate < fewest)
+            {
+                fewest = estimate;
+                choice = USE_REGION_INDEX;
+            }
+        }
+        if (query.hasCircle())
+        {
+            estimate = regionIndex.estimateRadius( query.getCenterLat(), query.getCenterLon(), query.getRadiusKm() );
+            if (estimate < fewest)
+            {
+                fewest = estimate;
+                choice = USE_RADIUS_INDEX;
+            }
+        }
+        if (query.hasDates())
+        {
+            estimate = dateIndex.count( query.getMinDate(), query.getMaxDate() );
+            if (estimate < fewest)
+            {
+                fewest = estimate;
+                choice = USE_DATE_INDEX;
+            }
+        }
+        if (query.hasMagnitudes())
+        {
+            estimate = magnitudeIndex.count( query.getMinMag(), query.getMaxMag() );
+            if (estimate < fewest)
+            {
+                fewest = estimate;
+                choice = USE_MAGNITUDE_INDEX;
+            }
+        }
+        if (query.hasLocation())
+        {
+            estimate = locationIndex.count( query.getLocationIds() );
+            if (estimate < fewest)
+            {
+                choice = USE_LOCATION_INDEX;
+            }
+        }
+
+        switch (choice)
+        {
+            case USE_REGION_INDEX:
+                candidates = regionIndex.search( query.getMinLat(), query.getMaxLat(), query.getMinLon(),
+                        query.getMaxLon() );
+                break;
+            case USE_RADIUS_INDEX:
+                candidates = regionIndex.searchRadius( query.getCenterLat(), query.getCenterLon(), query.getRadiusKm() );
+                break;
+            case USE_DATE_INDEX:
+                candidates = dateIndex.search( query.getMinDate(), query.getMaxDate() );
+                break;
+            case USE_MAGNITUDE_INDEX:
+                candidates = magnitudeIndex.search( query.getMinMag(), query.getMaxMag() );
+                break;
+            case USE_LOCATION_INDEX:
+                candidates = locationIndex.search( query.getLocationIds() );
+                break;
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Method to check part of a list of records against a query
+     * @param store QuakeStore: the store holding the records
+     * @param query QuakeQuery: the prepared query
+     * @param candidates IntList: the indexes of the records to check, or null to check every record
+     * @param from int: the first position in the list to check
+     * @param to int: the position after the last one to check
+     * @return IntList: the indexes of the matching records, in the order of the list
+     */
+    private static IntList scan(QuakeStore store, QuakeQuery query, IntList candidates, int from, int to)
+    {
+        IntList found = new IntList();
+        int id;
+
+        for (int k = from; k < to; k++)
+        {
+            id = candidates == null ? k : candidates.get( k );
+            if (query.matches( store, id ))
+            {
+                found.add( id );
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Mutator method to set the pool used to check records in parallel
+     * It waits for searches running to finish, so a search never sees the pool change part way through
+     * @param pool ForkJoinPool: the pool that runs the searches, or null to always search on the calling thread
+     */
+    public void setParallelPool(ForkJoinPool pool)
+    {
+        lock.writeLock().lock();
+
+        try
+        {
+            this.pool = pool;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Mutator method to set the number of records a search must check before it is split across the pool
+     * Each task of a parallel search also checks at most this many records
+     * @param threshold int: the number of records, at least 1
+     */
+    public void setParallelThreshold(int threshold)
+    {
+        lock.writeLock().lock();
+
+        try
+        {
+            parallelThreshold = Math.max( 1, threshold );
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Accessor method to get the number of records a search must check before it is split across the pool
+     * @return int: the number of records
+     */
+    public int getParallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
+    /**
+     * Method to search the quake records with a query and display them to the console
+     * @param query QuakeQuery: The conditions the records must match
+     * @return boolean: true if the search was done and displayed, false if there were problems with the query and
+     *                  the records were not displayed
+     */
+    public boolean querySearch(QuakeQuery query)
+    {
+        boolean searchDone = true;
+        String message = query.validate();
+        QuakeResultWriter output;       // collects the lines and writes them to the console in blocks
+
+        if (!message.isEmpty())
+        {
+            searchDone = false;
+            System.out.println( message + "\nSearch not processed." );
+        }
+        else
+        {
+            output = new QuakeResultWriter( new PrintWriter( System.out ) );
+            writeMatches( query, output );
+            output.flush();
+        }
+
+        return searchDone;
+    }
+
+    /**
+     * Method to search the quake records with a query and save them in the given filename
+     * @param query QuakeQuery: The conditions the records must match
+     * @param filename String: The name of the file to store the data
+     * @return boolean: true if the search was done and saved, false if there were problems with the query or
+     *                  the records were not saved
+     */
+    public boolean querySearch(QuakeQuery query, String filename)
+    {
+        File quakeOutputFile;
+        QuakeResultWriter outputFile;          // collects the lines and writes them in blocks
+        String message;
+        String input;           // used to get input from the user
+        boolean createFile = true;
+        Scanner keyboard = new Scanner( System.in );
+
+        quakeOutputFile = new File(filename);
+
+        if(quakeOutputFile.exists())
+        {
+            message = "File " + filename + " already exists.\n" +
+                    "Do you wish to overwrite this file? Y/N";
+
+            System.out.println( message );
+
+            input = keyboard.nextLine();
+            if (input==null || input.length()<1 || (input.charAt( 0 ) != 'Y' && input.charAt( 0 ) != 'y'))
+            {
+                createFile = false;
+                message = "File not created.";
+                System.out.println( message );
+            }
+        }
+
+        // check if the query conditions are valid
+        message = query.validate();
+        if (!message.isEmpty())
+        {
+            createFile = false;
+            System.out.println( message + "\nFile not created." );
+        }
+
+        if (createFile)
+        {
+            try                     // catch possible exception
+            {
+                outputFile = new QuakeResultWriter( new PrintWriter( quakeOutputFile ) );
+
+                writeMatches( query, outputFile );
+                outputFile.close();
+
+                message = "Records saved in file " + filename + ".\n";
+                System.out.println( message );
+
+            }
+            catch (FileNotFoundException e)
+            {
+                message = "File " + filename + " could not be opened.\n" +
+                        "File not created.";
+                System.out.println( message );
+            }
+
+        }
+
+        return createFile;
+    }
+
+    /**
+     * Method to find the quake records nearest to a point and display them to the console, nearest first
+     * @param lat double: the latitude of the point
+     * @param lon double: the longitude of the point
+     * @param k int: the number of records to display
+     * @return boolean: true if the search was done and displayed, false if there were problems with the parameters and
+     *                  the records were not displayed
+     */
+    public boolean nearestSearch(double lat, double lon, int k)
+    {
+        boolean searchDone = true;
+        String message = "";            // used for printing messages to console
+        QuakeResultWriter output;       // collects the lines and writes them to the console in blocks
+
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180 || k < 1)
+        {
+            searchDone = false;
+            message = "Latitude, longitude or number of quakes not valid." +
+                    "\nSearch not processed.";
+            System.out.println( message );
+        }
+        else
+        {
+            // display the nearest records, found with the grid index
+            output = new QuakeResultWriter( new PrintWriter( System.out ) );
+            writeNearest( lat, lon, k, output );
+            output.flush();
+        }
+
+        return searchDone;
+    }
+
+    /**
+     * Method to find the quake records nearest to a point and store them in the given filename, nearest first
+     * @param lat double: the latitude of the point
+     * @param lon double: the longitude of the point
+     * @param k int: the number of records to save
+     * @param filename String: the name of the file to store the data
+     * @return boolean: true if the search was done and saved, false if there were problems with the parameters or
+     *                  the records were not saved
+     */
+    public boolean nearestSearch(double lat, double lon, int k, String filename)
+    {
+        File quakeOutputFile;
+        QuakeResultWriter outputFile;          // collects the lines and writes them in blocks
+        String message;
+        String input;                   // used to get input from the user
+        boolean createFile = true;
+        Scanner keyboard = new Scanner( System.in );
+
+        quakeOutputFile = new File(filename);
+
+        if(quakeOutputFile.exists())
+        {
+            message = "File " + filename + " already exists.\n" +
+                    "Do you wish to overwrite this file? Y/N";
+
+            System.out.println( message );
+
+            input = keyboard.nextLine();
+            if (input==null || input.length()<1 || (input.charAt( 0 ) != 'Y' && input.charAt( 0 ) != 'y'))
+            {
+                createFile = false;
+                message = "File not created.";
+                System.out.println( message );
+            }
+        }
+        //  check if the point and the number of quakes are valid
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180 || k < 1)
+        {
+            createFile = false;
+            message = "Latitude, longitude or number of quakes not valid." +
+                        "\nFile not created.";
+            System.out.println( message );
+        }
+
+        if (createFile)
+        {
+            try                     // catch possible exception
+            {
+                outputFile = new QuakeResultWriter( new PrintWriter( quakeOutputFile ) );
+
+                writeNearest( lat, lon, k, outputFile );
+                outputFile.close();
+
+                message = "Records saved in file " + filename + ".\n";
+                System.out.println( message );
+
+            }
+            catch (FileNotFoundException e)
+            {
+                message = "File " + filename + " could not be opened.\n" +
+                        "File not created.";
+                System.out.println( message );
+            }
+        }
+
+        return createFile;
+    }
+
+    /**
+     * Method to find the quake records nearest to a point and write them with a result writer
+     * The records are found and formatted under one read lock, so they are all from the same state of the store
+     * @param lat double: the latitude of the point
+     * @param lon double: the longitude of the point
+     * @param k int: the number of records to write
+     * @param output QuakeResultWriter: The writer to add the records and the number found to
+     */
+    private void writeNearest(double lat, double lon, int k, QuakeResultWriter output)
+    {
+        lock.readLock().lock();
+
+        try
+        {
+            output.writeRecords( records, regionIndex.nearest( lat, lon, k, null ) );
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to find the largest quakes that match a query and display them to the console, largest first
+     * @param query QuakeQuery: The conditions the records must match
+     * @param k int: the number of records to display
+     * @return boolean: true if the search was done and displayed, false if there were problems with the query and
+     *                  the records were not displayed
+     */
+    public boolean largestSearch(QuakeQuery query, int k)
+    {
+        boolean searchDone = true;
+        String message = k < 1 ? "Number of quakes not valid." : query.validate();
+        QuakeResultWriter output;       // collects the lines and writes them to the console in blocks
+
+        if (!message.isEmpty())
+        {
+            searchDone = false;
+            System.out.println( message + "\nSearch not processed." );
+        }
+        else
+        {
+            output = new QuakeResultWriter( new PrintWriter( System.out ) );
+            writeLargest( query, k, output );
+            output.flush();
+        }
+
+        return searchDone;
+    }
+
+    /**
+     * Method to find the largest quakes that match a query and save them in the given filename, largest first
+     * @param query QuakeQuery: The conditions the records must match
+     * @param k int: the number of records to save
+     * @param filename String: The name of the file to store the data
+     * @return boolean: true if the search was done and saved, false if there were problems with the query or
+     *                  the records were not saved
+     */
+    public boolean largestSearch(QuakeQuery query, int k, String filename)
+    {
+        File quakeOutputFile;
+        QuakeResultWriter outputFile;          // collects the lines and writes them in blocks
+        String message;
+        String input;           // used to get input from the user
+        boolean createFile = true;
+        Scanner keyboard = new Scanner( System.in );
+
+        quakeOutputFile = new File(filename);
+
+        if(quakeOutputFile.exists())
+        {
+            message = "File " + filename + " already exists.\n" +
+                    "Do you wish to overwrite this file? Y/N";
+
+            System.out.println( message );
+
+            input = keyboard.nextLine();
+            if (input==null || input.length()<1 || (input.charAt( 0 ) != 'Y' && input.charAt( 0 ) != 'y'))
+            {
+                createFile = false;
+                message = "File not created.";
+                System.out.println( message );
+            }
+        }
+
+        // check if the number of quakes and the query conditions are valid
+        message = k < 1 ? "Number of quakes not valid." : query.validate();
+        if (!message.isEmpty())
+        {
+            createFile = false;
+            System.out.println( message + "\nFile not created." );
+        }
+
+        if (createFile)
+        {
+            try                     // catch possible exception
+            {
+                outputFile = new QuakeResultWriter( new PrintWriter( quakeOutputFile ) );
+
+                writeLargest( query, k, outputFile );
+                outputFile.close();
+
+                message = "Records saved in file " + filename + ".\n";
+                System.out.println( message );
+
+            }
+            catch (FileNotFoundException e)
+            {
+                message = "File " + filename + " could not be opened.\n" +
+                        "File not created.";
+                System.out.println( message );
+            }
+
+        }
+
+        return createFile;
+    }
+
+    /**
+     * Method to group the quake records that match a query and display the totals of each group to the console
+     * @param query QuakeQuery: The conditions the records must match
+     * @param groupBy int: how to group the records, QuakeAggregate.BY_DAY, BY_MONTH, BY_YEAR or BY_CELL
+     * @return boolean: true if the totals were displayed, false if there were problems with the query and
+     *                  the totals were not displayed
+     */
+    public boolean groupSearch(QuakeQuery query, int groupBy)
+    {
+        boolean searchDone = true;
+        String message = query.validate();
+        QuakeResultWriter output;       // collects the lines and writes them to the console in blocks
+
+        if (!message.isEmpty())
+        {
+            searchDone = false;
+            System.out.println( message + "\nSearch not processed." );
+        }
+        else
+        {
+            output = new QuakeResultWriter( new PrintWriter( System.out ) );
+            aggregate( query, groupBy ).writeGroups( output );
+            output.flush();
+        }
+
+        return searchDone;
+    }
+
+    /**
+     * Method to group the quake records that match a query and save the totals of each group in the given filename
+     * @param query QuakeQuery: The conditions the records must match
+     * @param groupBy int: how to group the records, QuakeAggregate.BY_DAY, BY_MONTH, BY_YEAR or BY_CELL
+     * @param filename String: The name of the file to store the totals
+     * @return boolean: true if the totals were saved, false if there were problems with the query or
+     *                  the totals were not saved
+     */
+    public boolean groupSearch(QuakeQuery query, int groupBy, String filename)
+    {
+        File quakeOutputFile;
+        QuakeResultWriter outputFile;          // collects the lines and writes them in blocks
+        String message;
+        String input;           // used to get input from the user
+        boolean createFile = true;
+        Scanner keyboard = new Scanner( System.in );
+
+        quakeOutputFile = new File(filename);
+
+        if(quakeOutputFile.exists())
+        {
+            message = "File " + filename + " already exists.\n" +
+                    "Do you wish to overwrite this file? Y/N";
+
+            System.out.println( message );
+
+            input = keyboard.nextLine();
+            if (input==null || input.length()<1 || (input.charAt( 0 ) != 'Y' && input.charAt( 0 ) != 'y'))
+            {
+                createFile = false;
+                message = "File not created.";
+                System.out.println( message );
+            }
+        }
+
+        // check if the query conditions are valid
+        message = query.validate();
+        if (!message.isEmpty())
+        {
+            createFile = false;
+            System.out.println( message + "\nFile not created." );
+        }
+
+        if (createFile)
+        {
+            try                     // catch possible exception
+            {
+                outputFile = new QuakeResultWriter( new PrintWriter( quakeOutputFile ) );
+
+                aggregate( query, groupBy ).writeGroups( outputFile );
+                outputFile.close();
+
+                message = "Totals saved in file " + filename + ".\n";
+                System.out.println( message );
+
+            }
+            catch (FileNotFoundException e)
+            {
+                message = "File " + filename + " could not be opened.\n" +
+                        "File not created.";
+                System.out.println( message );
+            }
+
+        }
+
+        return createFile;
+    }
+
+    /**
+     * Method to add the records appended to the data file since it was loaded or last updated
+     * Only the new bytes of the file are read, and the indexes are updated as the records are added
+     * @return int: the number of records added, 0 if there were none or the file could not be read
+     */
+    public int updateFromFile()
+    {
+        int added = 0;
+
+        try
+        {
+            added = followFile();
+        }
+        catch (IOException e)
+        {
+            System.out.println( "New records could not be read from the data file.\n" + e.getMessage() );
+        }
+        return added;
+    }
+
+    /**
+     * Method to start reading the records appended to the data file on a background thread
+     * Each read is the same as updateFromFile.  Reading stops if the file cannot be read
+     * @param period long: the number of milliseconds between reads of the file
+     */
+    public synchronized void startFollowing(long period)
+    {
+        stopFollowing();
+        if (follower != null)                       // only data loaded from a file can be followed
+        {
+            followTimer = new Timer( "QuakeData follower", true );      // does not keep the program running
+            followTimer.schedule( new FollowTask(), period, period );
+        }
+    }
+
+    /**
+     * Method to stop reading the data file in the background
+     * A read that has already started is finished
+     */
+    public synchronized void stopFollowing()
+    {
+        if (followTimer != null)
+        {
+            followTimer.cancel();
+            followTimer = null;
+        }
+    }
+
+    /**
+     * Method to read the records appended to the data file and add them to the store
+     * The new bytes are parsed into a separate store without the lock, then added under the write lock,
+     * so searches are only held back while the new records are copied in
+     * @return int: the number of records added
+     * @throws IOException if the file cannot be read, records read before the problem are still added
+     */
+    private int followFile() throws IOException
+    {
+        int added = 0;
+        int missedBefore;
+
+        if (follower != null)                       // only data loaded from a file can be updated
+        {
+            synchronized (follower)                 // the follower reads from where the last read stopped, so one at a time
+            {
+                missedBefore = follower.getNumOfRecordsMissed();
+                try
+                {
+                    follower.poll();
+                }
+                finally
+                {
+                    if (newRecords.size() > 0 || follower.getNumOfRecordsMissed() != missedBefore)
+                    {
+                        lock.writeLock().lock();
+                        try
+                        {
+                            added = addNewRecords();
+                            numOfRecords += added;
+                            numOfRecordsMissed += follower.getNumOfRecordsMissed() - missedBefore;
+                        }
+                        finally
+                        {
+                            lock.writeLock().unlock();
+                        }
+                        newRecords.clear();
+                    }
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Method to copy the records read by the follower into the record store, replacing revised events
+     * The caller must hold the write lock
+     * @return int: the number of records added as new records
+     */
+    private int addNewRecords()
+    {
+        int added = 0;
+
+        if (eventIndex == null)
+        {
+            records.addAll( newRecords );
+            added = newRecords.size();
+        }
+        else
+        {
+            for (int i = 0; i < newRecords.size(); i++)
+            {
+                if (addOrReplace( newRecords.getPackedDate( i ), newRecords.getPackedTime( i ),
+                        newRecords.getLatitude( i ), newRecords.getLongitude( i ), newRecords.getRichter( i ),
+                        records.internLocation( newRecords.getLocation( i ) ) ))
+                {
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Method to add a record to the store, or write it over the stored record of its event if it is a revision
+     * The caller must hold the write lock
+     * @param date int: the date of the quake in the form yyyymmdd
+     * @param time int: the time of the quake in the form hhmmssSSS
+     * @param lat double: the latitude of the quake
+     * @param lon double: the longitude of the quake
+     * @param ric double: the magnitude of the quake
+     * @param locId int: the id of the location name in the store
+     * @return boolean: true if the record was added as a new record, false if it replaced a revised event
+     */
+    private boolean addOrReplace(int date, int time, double lat, double lon, double ric, int locId)
+    {
+        int earlier = eventIndex == null ? -1 : eventIndex.findEvent( date, time, lat, lon );
+
+        if (earlier >= 0)
+        {
+            records.replace( earlier, date, time, lat, lon, ric, locId );
+            numOfDuplicates++;
+        }
+        else
+        {
+            records.add( date, time, lat, lon, ric, locId );
+        }
+        return earlier < 0;
+    }
+
+    /**
+     * Method to count the quake records with magnitudes at least minMag
+     * The count comes from the magnitude histogram, so no records are searched
+     * @param minMag double: The minimum magnitude of the quakes to count
+     * @return int: The number of quakes with a magnitude of at least minMag
+     */
+    public int magnitudeCount(double minMag)
+    {
+        int count;
+        lock.readLock().lock();
+
+        try
+        {
+            count = magnitudeIndex.countAtLeast( minMag );
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return count;
+    }
+
+    /**
+     * Method to return information about the QuakeData object saved as a String
+     * It does not include the data saved in the records as part of the string
+     * @return String: A String listing the number of records, the number of records missed, the storage capacity,
+     *                  and the first record of the record store
+     */
+    @Override
+    public String toString()
+    {
+        String str="";
+
+        lock.readLock().lock();
+
+        try
+        {
+            str += "Number of records: " + numOfRecords;
+            str += "\nNumber of records missed: " + numOfRecordsMissed;
+            str += "\nRecord storage capacity: " + records.getCapacity();
+
+            if( numOfRecords>0)
+            {
+                str += "\nFirst record: " + records.getRecord( 0 ).toString();
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        return str;
+    }
+
+    /**
+     * Method to return information about the QuakeData object saved as a String
+     * It does not include the data saved in the records as part of the string
+     * @return String: A String listing the number of records, the number of records missed, the storage capacity,
+     *                  and the first record of the record store
+     */
+    public String toModString()
+    {
+        String str="";
+
+        lock.readLock().lock();
+
+        try
+        {
+            str += "Number of records: " + numOfRecords;
+            str += "\nNumber of records missed: " + numOfRecordsMissed;
+            str += "\nRecord storage capacity: " + records.getCapacity();
+
+            if( numOfRecords>0)
+            {
+                str += "\nFirst record: " + records.getRecord( 0 ).toModString();
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        return str;
+    }
+
+    /**
+     * This class handles reading the data file on the follow timer
+     */
+    private class FollowTask extends TimerTask
+    {
+        /**
+         * Method to add the records appended to the data file, and stop following it if it cannot be read
+         */
+        @Override
+        public void run()
+        {
+            try
+            {
+                followFile();
+            }
+            catch (IOException e)
+            {
+                cancel();
+                System.out.println( "New records could not be read from the data file.\n" + e.getMessage() +
+                        "\nThe data file is no longer followed." );
+            }
+        }
+    }
+
+    /**
+     * This class handles checking a range of records against a query on a ForkJoinPool
+     * A range larger than the threshold is split in half, and the matches of the two halves are joined
+     * in order, so the result is the same as checking the records on one thread
+     */
+    private static class ScanTask extends RecursiveTask<IntList>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private QuakeStore store;
+        private QuakeQuery query;
+        private IntList candidates;
+        private int from, to, threshold;
+
+        /**
+         * Constructor to create a task for a range of records
+         * @param store QuakeStore: the store holding the records
+         * @param query QuakeQuery: the prepared query
+         * @param candidates IntList: the indexes of the records to check, or null to check every record
+         * @param from int: the first position in the list to check
+         * @param to int: the position after the last one to check
+         * @param threshold int: the largest range checked without splitting
+         */
+        public ScanTask(QuakeStore store, QuakeQuery query, IntList candidates, int from, int to, int threshold)
+        {
+            this.store = store;
+            this.query = query;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        /**
+         * Method to check the range of records
+         * @return IntList: the indexes of the matching records, in the order of the list
+         */
+        @Override
+        protected IntList compute()
+        {
+            IntList found, rightFound;
+            ScanTask left, right;
+            int middle;
+
+            if (to - from <= threshold)
+            {
+                found = scan( store, query, candidates, from, to );
+            }
+            else
+            {
+                middle = (from + to) >>> 1;
+                left = new ScanTask( store, query, candidates, from, middle, threshold );
+                right = new ScanTask( store, query, candidates, middle, to, threshold );
+                left.fork();
+                rightFound = right.compute();
+                found = left.join();
+                found.addAll( rightFound );         // the left half comes first in the list
+            }
+            return found;
+        }
+    }
+
+    /**
+     * This class handles totalling part of a list of records on a ForkJoinPool
+     * A range larger than the threshold is split in half, and the totals of the halves are merged
+     */
+    private static class AggregateTask extends RecursiveTask<QuakeAggregate>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private QuakeStore store;
+        private IntList ids;
+        private int groupBy;
+        private int from, to, threshold;
+
+        /**
+         * Constructor to create a task for a range of records
+         * @param store QuakeStore: the store holding the records
+         * @param ids IntList: the indexes of the records to add, or null to add every record
+         * @param groupBy int: how to group the records
+         * @param from int: the first position in the list to add
+         * @param to int: the position after the last one to add
+         * @param threshold int: the largest range added without splitting
+         */
+        public AggregateTask(QuakeStore store, IntList ids, int groupBy, int from, int to, int threshold)
+        {
+            this.store = store;
+            this.ids = ids;
+            this.groupBy = groupBy;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        /**
+         * Method to total the range of records
+         * @return QuakeAggregate: the totals of the range
+         */
+        @Override
+        protected QuakeAggregate compute()
+        {
+            QuakeAggregate totals;
+            AggregateTask left, right;
+            int middle;
+
+            if (to - from <= threshold)
+            {
+                totals = new QuakeAggregate( groupBy );
+                totals.addRecords( store, ids, from, to );
+            }
+            else
+            {
+                middle = (from + to) >>> 1;
+                left = new AggregateTask( store, ids, groupBy, from, middle, threshold );
+                right = new AggregateTask( store, ids, groupBy, middle, to, threshold );
+                left.fork();
+                totals = right.compute();
+                totals.merge( left.join() );
+            }
+            return totals;
+        }
+    }
 }
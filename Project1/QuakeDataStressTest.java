@@ -0,0 +1,477 @@
+/************************************************************************************************
+ *  This class checks that QuakeData gives consistent results while it is searched and changed at once
+ *
+ *  One ingest thread appends batches of records to a data file and reads them in with updateFromFile,
+ *  which adds each batch under one write lock, and removes older batches whole with removeMatches.
+ *  Every record of a batch has the same magnitude and the location "Batch n Region", so in any state
+ *  of the data a batch is either all there or not there at all.
+ *
+ *  Several query threads search at the same time, sharing the same QuakeQuery objects, and check that
+ *  every result is of one such state: each batch found has all of its records, each record found
+ *  matches the query, and the magnitude counts and group totals are whole batches.  At the end the
+ *  batches left are compared with the ones the ingest thread kept.
+ *
+ *  Usage: java QuakeDataStressTest [number of batches] [number of query threads]
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+public class QuakeDataStressTest
+{
+    private final static int DEFAULT_BATCHES = 2000;
+    private final static int DEFAULT_QUERY_THREADS = 4;
+    private final static int BATCH_SIZE = 10;               // records in each batch
+    private final static int BATCHES_KEPT = 50;             // batches before the newest that are not removed
+
+    /**
+     * Method is the main method of the stress test
+     * It ends with exit code 1 if any inconsistent result was found
+     * @param args String[]: the number of batches and the number of query threads, both optional
+     */
+    public static void main( String args[] ) throws IOException, InterruptedException
+    {
+        int batches = args.length > 0 ? Integer.parseInt( args[0] ) : DEFAULT_BATCHES;
+        int numOfThreads = args.length > 1 ? Integer.parseInt( args[1] ) : DEFAULT_QUERY_THREADS;
+        File dataFile = File.createTempFile( "quakestress", ".txt" );
+        QuakeData data;
+        IngestTask ingest;
+        Thread ingestThread;
+        QueryTask[] queries = new QueryTask[numOfThreads];
+        Thread[] queryThreads = new Thread[numOfThreads];
+        long checks = 0;
+        int failures;
+
+        try
+        {
+            data = new QuakeData( dataFile.getPath() );
+            ingest = new IngestTask( data, dataFile, batches );
+            ingestThread = new Thread( ingest );
+
+            for (int t = 0; t < numOfThreads; t++)
+            {
+                queries[t] = new QueryTask( data, ingest, t );
+                queryThreads[t] = new Thread( queries[t] );
+                queryThreads[t].start();
+            }
+            ingestThread.start();
+
+            ingestThread.join();
+            for (int t = 0; t < numOfThreads; t++)
+            {
+                queryThreads[t].join();
+            }
+
+            failures = ingest.getFailures() + checkFinalState( data, ingest );
+            for (QueryTask query : queries)
+            {
+                failures += query.getFailures();
+                checks += query.getChecks();
+            }
+        }
+        finally
+        {
+            dataFile.delete();
+            new File( QuakeSnapshot.snapshotName( dataFile.getPath() ) ).delete();
+        }
+
+        System.out.println( batches + " batches of " + BATCH_SIZE + " records, " + numOfThreads + " query threads" );
+        System.out.println( checks + " results checked, " + failures + " inconsistent" );
+        if (failures > 0)
+        {
+            System.exit( 1 );
+        }
+    }
+
+    /**
+     * Method to check that the data holds exactly the batches the ingest thread kept
+     * @param data QuakeData: the data after every thread has finished
+     * @param ingest IngestTask: the task that changed the data
+     * @return int: the number of problems found
+     */
+    public static int checkFinalState( QuakeData data, IngestTask ingest )
+    {
+        HashMap<String, Integer> counts = countBatches( data.getMatches( new QuakeQuery() ) );
+        int failures = 0;
+
+        if (data.getNumOfRecords() != ingest.getNumOfBatchesKept() * BATCH_SIZE)
+        {
+            System.out.println( "Final record count " + data.getNumOfRecords() + " is not " +
+                    ingest.getNumOfBatchesKept() * BATCH_SIZE );
+            failures++;
+        }
+        for (int b = 0; b < ingest.getNumOfBatches(); b++)
+        {
+            if (counts.containsKey( batchLocation( b ) ) != ingest.isKept( b ))
+            {
+                System.out.println( "Batch " + b + " is " + (ingest.isKept( b ) ? "missing" : "still there") );
+                failures++;
+            }
+        }
+        return failures + checkWholeBatches( counts, "final state" );
+    }
+
+    /**
+     * Method to count the records of each batch in a list of records
+     * @param records ArrayList<QuakeRecord>: the records
+     * @return HashMap<String, Integer>: the number of records with each location
+     */
+    public static HashMap<String, Integer> countBatches( ArrayList<QuakeRecord> records )
+    {
+        HashMap<String, Integer> counts = new HashMap<>();
+        Integer count;
+
+        for (QuakeRecord record : records)
+        {
+            count = counts.get( record.getLocation() );
+            counts.put( record.getLocation(), count == null ? 1 : count + 1 );
+        }
+        return counts;
+    }
+
+    /**
+     * Method to check that every batch counted has all of its records
+     * @param counts HashMap<String, Integer>: the number of records found with each location
+     * @param check String: the name of the check, for the message
+     * @return int: 1 if a batch is only partly there, otherwise 0
+     */
+    public static int checkWholeBatches( HashMap<String, Integer> counts, String check )
+    {
+        int failures = 0;
+
+        for (String location : counts.keySet())
+        {
+            if (failures == 0 && counts.get( location ) != BATCH_SIZE)
+            {
+                System.out.println( check + ": " + counts.get( location ) + " records of " + location );
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Method to get the location of the records of a batch
+     * @param batch int: the number of the batch
+     * @return String: the location
+     */
+    public static String batchLocation( int batch )
+    {
+        return "Batch " + batch + " Region";
+    }
+
+    /**
+     * Method to get the magnitude of the records of a batch
+     * @param batch int: the number of the batch
+     * @return double: the magnitude, from 4.0 to 8.9
+     */
+    public static double batchMagnitude( int batch )
+    {
+        return 4.0 + batch % 50 / 10.0;
+    }
+
+    /**
+     * Class for the thread that adds and removes batches of records
+     */
+    private static class IngestTask implements Runnable
+    {
+        private QuakeData data;
+        private File dataFile;
+        private int numOfBatches;
+        private boolean[] kept;                 // element b is true if batch b is in the data at the end
+        private volatile boolean done = false;
+        private int failures = 0;
+
+        /**
+         * Constructor to create the ingest task
+         * @param data QuakeData: the data to change
+         * @param dataFile File: the data file the batches are appended to
+         * @param numOfBatches int: the number of batches to add
+         */
+        public IngestTask( QuakeData data, File dataFile, int numOfBatches )
+        {
+            this.data = data;
+            this.dataFile = dataFile;
+            this.numOfBatches = numOfBatches;
+            kept = new boolean[numOfBatches];
+        }
+
+        /**
+         * Method to add every batch, removing the older ones as it goes
+         * A batch is appended to the file and read in with updateFromFile, and the batch BATCHES_KEPT
+         * before it is removed unless its number is a multiple of 3
+         */
+        @Override
+        public void run()
+        {
+            Random random = new Random( 1 );
+            QuakeQuery batchQuery;
+            int old, removed;
+
+            try
+            {
+                for (int b = 0; b < numOfBatches; b++)
+                {
+                    appendBatch( b, random );
+                    if (data.updateFromFile() != BATCH_SIZE)
+                    {
+                        System.out.println( "Batch " + b + " was not read whole from the file" );
+                        failures++;
+                    }
+                    kept[b] = true;
+
+                    old = b - BATCHES_KEPT;
+                    if (old >= 0 && old % 3 != 0)
+                    {
+                        batchQuery = new QuakeQuery();
+                        batchQuery.setLocationWords( "batch " + old );
+                        removed = data.removeMatches( batchQuery );
+                        if (removed != BATCH_SIZE)
+                        {
+                            System.out.println( "Removing batch " + old + " removed " + removed + " records" );
+                            failures++;
+                        }
+                        kept[old] = false;
+                    }
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                System.out.println( "Ingest thread failed: " + e );
+                failures++;
+            }
+            done = true;
+        }
+
+        /**
+         * Method to append the records of a batch to the data file
+         * @param batch int: the number of the batch
+         * @param random Random: gives the times and locations of the records
+         * @throws IOException if the file cannot be written
+         */
+        private void appendBatch( int batch, Random random ) throws IOException
+        {
+            try (PrintWriter output = new PrintWriter( new FileWriter( dataFile, true ) ))
+            {
+                for (int i = 0; i < BATCH_SIZE; i++)
+                {
+                    output.print( String.format( "%04d-%02d-%02dT%02d:%02d:%02d.000Z", 1990 + random.nextInt( 30 ),
+                            1 + random.nextInt( 12 ), 1 + random.nextInt( 28 ), random.nextInt( 24 ),
+                            random.nextInt( 60 ), random.nextInt( 60 ) ) );
+                    output.print( "|" + (random.nextInt( 1600 ) / 10.0 - 80.0) );
+                    output.print( "|" + (random.nextInt( 3600 ) / 10.0 - 180.0) );
+                    output.print( "|" + batchMagnitude( batch ) + "|" + batchLocation( batch ) + "\n" );
+                }
+            }
+        }
+
+        /**
+         * Accessor method to check if every batch has been added
+         * @return boolean: true if the task has finished
+         */
+        public boolean isDone()
+        {
+            return done;
+        }
+
+        /**
+         * Accessor method to get the number of batches added
+         * @return int: the number of batches
+         */
+        public int getNumOfBatches()
+        {
+            return numOfBatches;
+        }
+
+        /**
+         * Accessor method to check if a batch is in the data at the end
+         * @param batch int: the number of the batch
+         * @return boolean: true if the batch was not removed
+         */
+        public boolean isKept( int batch )
+        {
+            return kept[batch];
+        }
+
+        /**
+         * Accessor method to get the number of batches in the data at the end
+         * @return int: the number of batches kept
+         */
+        public int getNumOfBatchesKept()
+        {
+            int count = 0;
+
+            for (boolean k : kept)
+            {
+                if (k)
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Accessor method to get the number of problems found while changing the data
+         * @return int: the number of problems
+         */
+        public int getFailures()
+        {
+            return failures;
+        }
+    }
+
+    /**
+     * Class for a thread that searches the data and checks each result until the ingest thread is done
+     */
+    private static class QueryTask implements Runnable
+    {
+        // shared by every query thread, so a search must not change them
+        private static final QuakeQuery WORDS_QUERY = new QuakeQuery();
+        private static final QuakeQuery TEXT_AND_MAGNITUDE_QUERY = new QuakeQuery();
+
+        private QuakeData data;
+        private IngestTask ingest;
+        private Random random;
+        private long checks = 0;
+        private int failures = 0;
+
+        static
+        {
+            WORDS_QUERY.setLocationWords( "region batch" );
+            TEXT_AND_MAGNITUDE_QUERY.setLocationText( "batch 1" );
+            TEXT_AND_MAGNITUDE_QUERY.setMagnitudes( 5.0, 7.0 );
+        }
+
+        /**
+         * Constructor to create a query task
+         * @param data QuakeData: the data to search
+         * @param ingest IngestTask: the task changing the data, searched until it is done
+         * @param seed int: the seed of the random choice of searches
+         */
+        public QueryTask( QuakeData data, IngestTask ingest, int seed )
+        {
+            this.data = data;
+            this.ingest = ingest;
+            random = new Random( seed );
+        }
+
+        /**
+         * Method to run searches and check them until the ingest thread is done
+         */
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!ingest.isDone() && failures == 0)
+                {
+                    switch (random.nextInt( 4 ))
+                    {
+                        case 0:
+                            failures += checkWholeBatches( countBatches( data.getMatches( WORDS_QUERY ) ),
+                                    "location words" );
+                            break;
+                        case 1:
+                            failures += checkTextAndMagnitude();
+                            break;
+                        case 2:
+                            failures += checkCount( data.magnitudeCount( 4.0 + random.nextInt( 50 ) / 10.0 ),
+                                    "magnitude count" );
+                            break;
+                        default:
+                            failures += checkGroups( data.aggregate( WORDS_QUERY, QuakeAggregate.BY_YEAR ) );
+                    }
+                    checks++;
+                }
+            }
+            catch (RuntimeException e)
+            {
+                System.out.println( "Query thread failed: " + e );
+                failures++;
+            }
+        }
+
+        /**
+         * Method to check a search with location text and a magnitude range
+         * Each record found must match both conditions, and each batch must be found whole
+         * @return int: the number of problems found
+         */
+        private int checkTextAndMagnitude()
+        {
+            ArrayList<QuakeRecord> found = data.getMatches( TEXT_AND_MAGNITUDE_QUERY );
+            int problems = 0;
+
+            for (QuakeRecord record : found)
+            {
+                if (problems == 0 && (!record.getLocation().toUpperCase().contains( "BATCH 1" ) ||
+                        record.getRichter() < 5.0 || record.getRichter() > 7.0))
+                {
+                    System.out.println( "Text and magnitude search found " + record.getLocation() + " of magnitude " +
+                            record.getRichter() );
+                    problems++;
+                }
+            }
+            return problems + checkWholeBatches( countBatches( found ), "text and magnitude" );
+        }
+
+        /**
+         * Method to check that the totals of a grouped search add up to whole batches
+         * @param totals QuakeAggregate: the totals of the search
+         * @return int: the number of problems found
+         */
+        private int checkGroups( QuakeAggregate totals )
+        {
+            int count = 0;
+
+            for (int g = 0; g < totals.size(); g++)
+            {
+                count += totals.getCount( g );
+            }
+            return checkCount( count, "group totals" );
+        }
+
+        /**
+         * Method to check that a count is of whole batches
+         * @param count int: the number of records counted
+         * @param check String: the name of the check, for the message
+         * @return int: 1 if the count is not a multiple of the batch size, otherwise 0
+         */
+        private int checkCount( int count, String check )
+        {
+            int problems = 0;
+
+            if (count % BATCH_SIZE != 0)
+            {
+                System.out.println( check + ": " + count + " records is not whole batches" );
+                problems++;
+            }
+            return problems;
+        }
+
+        /**
+         * Accessor method to get the number of results checked
+         * @return long: the number of checks
+         */
+        public long getChecks()
+        {
+            return checks;
+        }
+
+        /**
+         * Accessor method to get the number of problems found
+         * @return int: the number of problems
+         */
+        public int getFailures()
+        {
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/************************************************************************************************
+ *  This class handles an index of the records of a QuakeStore sorted by date
+ *
+ *  The key of a record is its packed date of the form yyyymmdd, which sorts in the same order
+ *  as Dates.compareTo, so a date range search is two binary searches
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public class QuakeDateIndex extends QuakeSortedIndex
+{
+    /**
+     * Constructor to create the index over a store
+     * @param store QuakeStore: the store holding the records
+     */
+    public QuakeDateIndex(QuakeStore store)
+    {
+        super( store );
+    }
+
+    /**
+     * Method to get the key of a record
+     * @param id int: the index of the record in the store
+     * @return long: the packed date of the record
+     */
+    @Override
+    protected long keyOf(int id)
+    {
+        return store.getPackedDate( id );
+    }
+
+    /**
+     * Method to find the records from one date to another
+     * @param minDate Dates: the earliest date
+     * @param maxDate Dates: the latest date
+     * @return IntList: the indexes of the records found, in increasing order
+     */
+    public IntList search(Dates minDate, Dates maxDate)
+    {
+        return search( QuakeStore.packDate( minDate.getYear(), minDate.getMonth(), minDate.getDay() ),
+                QuakeStore.packDate( maxDate.getYear(), maxDate.getMonth(), maxDate.getDay() ) );
+    }
+}
@@ -0,0 +1,163 @@
+/************************************************************************************************
+ *  This class handles an index of the records in a QuakeStore for finding repeated events
+ *
+ *  Feeds send an event again when it is revised, usually with a slightly different time or location,
+ *  so a repeat is a record within a time tolerance and a degree tolerance of another record rather
+ *  than a record with exactly the same data.
+ *
+ *  Records are put in buckets by the window of time they are in, with windows as long as the time
+ *  tolerance.  Any record close enough in time is in the same window or the one before or after it,
+ *  so only the records in three buckets are checked.
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public class QuakeEventIndex extends QuakeHashIndex
+{
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    private long timeTolerance;             // milliseconds
+    private double degreeTolerance;
+    private long windowLength;              // milliseconds in each time window, at least 1
+
+    /**
+     * Constructor to create the index over a store
+     * @param store QuakeStore: the store holding the records
+     * @param seconds double: the most seconds between the times of two records of the same event
+     * @param degrees double: the most degrees of latitude, and of longitude, between two records of the same event
+     */
+    public QuakeEventIndex(QuakeStore store, double seconds, double degrees)
+    {
+        super( store );
+        timeTolerance = Math.round( Math.max( 0.0, seconds ) * 1000 );
+        degreeTolerance = Math.max( 0.0, degrees );
+        windowLength = Math.max( 1, timeTolerance );
+    }
+
+    /**
+     * Accessor method to get the time tolerance
+     * @return double: the most seconds between the times of two records of the same event
+     */
+    public double getSeconds()
+    {
+        return timeTolerance / 1000.0;
+    }
+
+    /**
+     * Accessor method to get the degree tolerance
+     * @return double: the most degrees of latitude, and of longitude, between two records of the same event
+     */
+    public double getDegrees()
+    {
+        return degreeTolerance;
+    }
+
+    /**
+     * Method to get the hash code of a record, which is the hash code of its time window
+     * @param id int: the index of the record in the store
+     * @return int: the hash code of the window of the record
+     */
+    @Override
+    protected int hashOf(int id)
+    {
+        return Long.hashCode( Math.floorDiv( epochMillis( store.getPackedDate( id ), store.getPackedTime( id ) ),
+                windowLength ) );
+    }
+
+    /**
+     * Method to find a record in the store of the same event as a record
+     * @param record QuakeRecord: the record to check
+     * @return int: the index of a record within the tolerances of the record, or -1 if there is none
+     */
+    public int findEvent(QuakeRecord record)
+    {
+        return findEvent( QuakeStore.packDate( record.getYear(), record.getMonth(), record.getDay() ),
+                QuakeStore.packTime( record.getHour(), record.getMinute(), record.getSecond() ),
+                record.getLatitude(), record.getLongitude() );
+    }
+
+    /**
+     * Method to find a record in the store of the same event as record data in packed form
+     * @param date int: the date of the quake in the form yyyymmdd
+     * @param time int: the time of the quake in the form hhmmssSSS
+     * @param lat double: the latitude of the quake
+     * @param lon double: the longitude of the quake
+     * @return int: the index of a record within the tolerances, or -1 if there is none
+     */
+    public int findEvent(int date, int time, double lat, double lon)
+    {
+        long millis = epochMillis( date, time );
+        long window = Math.floorDiv( millis, windowLength );
+        int found = NONE;
+
+        for (long w = window - 1; w <= window + 1 && found == NONE; w++)
+        {
+            for (int id = firstInBucket( Long.hashCode( w ) ); id != NONE && found == NONE; id = nextInBucket( id ))
+            {
+                if (isNear( id, millis, lat, lon ))
+                {
+                    found = id;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Method to find a record stored before a record in the store that is of the same event
+     * Used to go through the records in order, finding each repeat of an event stored earlier
+     * @param id int: the index of the record in the store
+     * @param isRepeat boolean[]: element i is true if record i is a repeat found already, which is not matched
+     * @return int: the index of a record before id within the tolerances of it that is not a repeat, or -1 if there is none
+     */
+    public int findEarlierEvent(int id, boolean[] isRepeat)
+    {
+        long millis = epochMillis( store.getPackedDate( id ), store.getPackedTime( id ) );
+        long window = Math.floorDiv( millis, windowLength );
+        double lat = store.getLatitude( id );
+        double lon = store.getLongitude( id );
+        int found = NONE;
+
+        for (long w = window - 1; w <= window + 1 && found == NONE; w++)
+        {
+            for (int other = firstInBucket( Long.hashCode( w ) ); other != NONE && found == NONE;
+                 other = nextInBucket( other ))
+            {
+                if (other < id && !isRepeat[other] && isNear( other, millis, lat, lon ))
+                {
+                    found = other;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Method to get the time of a quake as milliseconds from the start of January 1, 1970
+     * @param date int: the date of the quake in the form yyyymmdd
+     * @param time int: the time of the quake in the form hhmmssSSS
+     * @return long: the number of milliseconds
+     */
+    public static long epochMillis(int date, int time)
+    {
+        return Dates.epochDay( date ) * MILLIS_PER_DAY + Times.millisOfDay( time );
+    }
+
+    /**
+     * Method to check if a record in the store is within the tolerances of a time and location
+     * Longitudes are compared the short way around the globe, so events on either side of 180 are close
+     * @param id int: the index of the record
+     * @param millis long: the time, from epochMillis
+     * @param lat double: the latitude
+     * @param lon double: the longitude
+     * @return boolean: true if the record is within both tolerances, false if not
+     */
+    private boolean isNear(int id, long millis, double lat, double lon)
+    {
+        double lonDifference = Math.abs( store.getLongitude( id ) - lon );
+
+        return Math.abs( epochMillis( store.getPackedDate( id ), store.getPackedTime( id ) ) - millis ) <= timeTolerance &&
+                Math.abs( store.getLatitude( id ) - lat ) <= degreeTolerance &&
+                Math.min( lonDifference, 360 - lonDifference ) <= degreeTolerance;
+    }
+}
@@ -0,0 +1,116 @@
+/************************************************************************************************
+ *  This class handles following a quake data file that new records are appended to
+ *
+ *  It remembers the offset of the data already loaded, and each poll reads only the bytes added
+ *  after it.  Complete lines are parsed into the store, which keeps its indexes up to date as the
+ *  records are added.  A last line without a line break is left until the rest of it is written.
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class QuakeFollower
+{
+    private static final int BUFFER_SIZE = 1 << 16;     // bytes read from the file at a time
+
+    private String fileName;
+    private long offset;                                // bytes of the file already parsed
+    private QuakeParser parser;                         // kept between polls for its counts and location table
+    private ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+
+    /**
+     * Constructor to create a follower for a file that has been loaded up to an offset
+     * @param store QuakeStore: the store the new records are added to
+     * @param fileName String: the name of the file to follow
+     * @param offset long: the number of bytes of the file already loaded
+     */
+    public QuakeFollower(QuakeStore store, String fileName, long offset)
+    {
+        this.fileName = fileName;
+        this.offset = offset;
+        parser = new QuakeParser( store );
+    }
+
+    /**
+     * Accessor method to get the number of bytes of the file parsed so far
+     * @return long: the offset the next poll starts reading from
+     */
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * Accessor method to get the number of records added by all polls
+     * @return int: the number of good records added
+     */
+    public int getNumOfRecords()
+    {
+        return parser.getNumOfRecords();
+    }
+
+    /**
+     * Accessor method to get the number of lines that could not be added by all polls
+     * @return int: the number of bad records
+     */
+    public int getNumOfRecordsMissed()
+    {
+        return parser.getNumOfRecordsMissed();
+    }
+
+    /**
+     * Method to parse the complete lines added to the file since the last poll
+     * @return int: the number of records added to the store
+     * @throws IOException if the file cannot be read, or is now shorter than the data already loaded
+     */
+    public int poll() throws IOException
+    {
+        int before = parser.getNumOfRecords();
+        long size;
+        boolean moreLines = true;
+
+        try (FileChannel channel = FileChannel.open( Paths.get( fileName ), StandardOpenOption.READ ))
+        {
+            size = channel.size();
+            if (size < offset)
+            {
+                throw new IOException( "The file " + fileName + " is shorter than the data already loaded." );
+            }
+
+            while (moreLines && offset < size)
+            {
+                buffer.clear();
+                if (channel.read( buffer, offset ) <= 0)
+                {
+                    moreLines = false;
+                }
+                else
+                {
+                    buffer.flip();
+                    parser.parseLines( buffer, false );
+
+                    if (buffer.position() > 0)
+                    {
+                        offset += buffer.position();
+                    }
+                    else if (buffer.limit() == buffer.capacity())
+                    {
+                        // a single line fills the buffer, so make room for the rest of it
+                        buffer = ByteBuffer.allocate( buffer.capacity() * 2 );
+                    }
+                    else
+                    {
+                        moreLines = false;          // only part of a line has been written so far
+                    }
+                }
+            }
+        }
+
+        return parser.getNumOfRecords() - before;
+    }
+}
@@ -0,0 +1,452 @@
+/************************************************************************************************
+ *  This class handles a spatial index of the records in a QuakeStore
+ *
+ *  The globe is divided into a grid of cells of CELL_SIZE degrees of latitude and longitude, and each
+ *  cell holds the indexes of the records inside it.  A region search only looks at the records of
+ *  the cells that overlap the region, so its cost depends on the number of records found rather
+ *  than the size of the catalog.
+ *
+ *  Searches around a point use the great-circle distance.  The cells looked at are the rows the distance
+ *  can reach and the columns it can reach at that latitude, wrapping past longitude 180, and every
+ *  column once the circle covers a pole.
+ *
+ *  A region with minLon more than maxLon crosses longitude 180, such as 170 to -170.  Its columns run
+ *  from minLon past the end of the grid and wrap around to maxLon, so both halves are found in one pass.
+ *
+ *  Each record's position in its cell list is saved so records are removed and moved in O(1)
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public class QuakeGridIndex implements QuakeIndex
+{
+    public static final double CELL_SIZE = 1.0;                     // degrees per cell
+    public static final int ROWS = (int) Math.ceil( 180 / CELL_SIZE );
+    public static final int COLUMNS = (int) Math.ceil( 360 / CELL_SIZE );
+    public static final double EARTH_RADIUS_KM = 6371.0;            // mean radius
+    public static final double HALF_CIRCUMFERENCE_KM = Math.PI * EARTH_RADIUS_KM;  // farthest two points can be
+    private static final double FIRST_RADIUS_KM = 100.0;            // first distance checked by a nearest search
+
+    private QuakeStore store;
+    private IntList[] cells = new IntList[ROWS * COLUMNS];  // created when the first record is added to a cell
+    private IntList positionInCell = new IntList();         // element i is the position of record i in its cell
+
+    /**
+     * Constructor to create the index over a store
+     * The index must be registered with store.addIndex to be kept up to date
+     * @param store QuakeStore: the store holding the records
+     */
+    public QuakeGridIndex(QuakeStore store)
+    {
+        this.store = store;
+    }
+
+    /**
+     * Method to add a record to its cell
+     * @param id int: the index of the new record
+     */
+    @Override
+    public void recordAdded(int id)
+    {
+        int cell = cellOf( store.getLatitude( id ), store.getLongitude( id ) );
+
+        if (cells[cell] == null)
+        {
+            cells[cell] = new IntList();
+        }
+
+        while (positionInCell.size() <= id)
+        {
+            positionInCell.add( 0 );
+        }
+        positionInCell.set( id, cells[cell].size() );
+        cells[cell].add( id );
+    }
+
+    /**
+     * Method to remove a record from its cell
+     * @param id int: the index of the record being removed
+     */
+    @Override
+    public void recordRemoved(int id)
+    {
+        IntList list = cells[cellOf( store.getLatitude( id ), store.getLongitude( id ) )];
+        int position = positionInCell.get( id );
+
+        list.removeSwap( position );
+        if (position < list.size())             // another record was moved into the position
+        {
+            positionInCell.set( list.get( position ), position );
+        }
+    }
+
+    /**
+     * Method to change the index of a record in its cell
+     * @param from int: the old index of the record
+     * @param to int: the new index of the record
+     */
+    @Override
+    public void recordMoved(int from, int to)
+    {
+        IntList list = cells[cellOf( store.getLatitude( to ), store.getLongitude( to ) )];
+        int position = positionInCell.get( from );
+
+        list.set( position, to );
+        positionInCell.set( to, position );
+    }
+
+    /**
+     * Method to renumber the records after some are removed and the rest move down to fill the gaps
+     * The records keep their positions in their cells, so only the indexes change
+     * @param newIds int[]: element i is the new index of the record that had index i, or -1 if it was removed
+     */
+    @Override
+    public void recordsRenumbered(int[] newIds)
+    {
+        for (IntList list : cells)
+        {
+            if (list != null)
+            {
+                list.renumber( newIds );
+            }
+        }
+        positionInCell.compact( newIds );
+    }
+
+    /**
+     * Method to find the records inside a region
+     * If minLon is more than maxLon the region crosses longitude 180
+     * @param minLat double: the minimum latitude of the region
+     * @param maxLat double: the maximum latitude of the region
+     * @param minLon double: the minimum longitude of the region
+     * @param maxLon double: the maximum longitude of the region
+     * @return IntList: the indexes of the records in the region, in increasing order
+     */
+    public IntList search(double minLat, double maxLat, double minLon, double maxLon)
+    {
+        IntList found = new IntList();
+        IntList list;
+        int id;
+        int firstCol = columnOf( minLon ), lastCol = lastColumnOf( minLon, maxLon );
+        double recLat, recLong;
+
+        for (int row = rowOf( minLat ); row <= rowOf( maxLat ); row++)
+        {
+            for (int col = firstCol; col <= lastCol; col++)
+            {
+                list = cells[row * COLUMNS + col % COLUMNS];
+                for (int k = 0; list != null && k < list.size(); k++)
+                {
+                    // cells on the edge of the region can hold records outside of it
+                    id = list.get( k );
+                    recLat = store.getLatitude( id );
+                    recLong = store.getLongitude( id );
+                    if (minLat <= recLat && recLat <= maxLat && inLongitudes( recLong, minLon, maxLon ))
+                    {
+                        found.add( id );
+                    }
+                }
+            }
+        }
+
+        found.sort();                           // keep the order of the records in the store
+        return found;
+    }
+
+    /**
+     * Method to estimate how many records a region search will look at
+     * It adds up the records in the cells that overlap the region without checking any records
+     * If minLon is more than maxLon the region crosses longitude 180
+     * @param minLat double: the minimum latitude of the region
+     * @param maxLat double: the maximum latitude of the region
+     * @param minLon double: the minimum longitude of the region
+     * @param maxLon double: the maximum longitude of the region
+     * @return int: the number of records in the cells that overlap the region
+     */
+    public int estimate(double minLat, double maxLat, double minLon, double maxLon)
+    {
+        int count = 0;
+        IntList list;
+        int firstCol = columnOf( minLon ), lastCol = lastColumnOf( minLon, maxLon );
+
+        for (int row = rowOf( minLat ); row <= rowOf( maxLat ); row++)
+        {
+            for (int col = firstCol; col <= lastCol; col++)
+            {
+                list = cells[row * COLUMNS + col % COLUMNS];
+                if (list != null)
+                {
+                    count += list.size();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Method to find the records within a distance of a point, measured along the surface of the earth
+     * Only the cells that can hold such records are looked at, which near the poles is every column
+     * @param lat double: the latitude of the point
+     * @param lon double: the longitude of the point
+     * @param radiusKm double: the distance in kilometres
+     * @return IntList: the indexes of the records within the distance, in increasing order
+     */
+    public IntList searchRadius(double lat, double lon, double radiusKm)
+    {
+        IntList found = new IntList();
+        IntList list;
+        int[] range = cellRange( lat, lon, radiusKm );
+        int id;
+
+        for (int row = range[0]; row <= range[1]; row++)
+        {
+            for (int col = range[2]; col <= range[3]; col++)
+            {
+                list = cells[row * COLUMNS + Math.floorMod( col, COLUMNS )];
+                for (int k = 0; list != null && k < list.size(); k++)
+                {
+                    id = list.get( k );
+                    if (distanceKm( lat, lon, store.getLatitude( id ), store.getLongitude( id ) ) <= radiusKm)
+                    {
+                        found.add( id );
+                    }
+                }
+            }
+        }
+
+        found.sort();                           // keep the order of the records in the store
+        return found;
+    }
+
+    /**
+     * Method to estimate how many records a radius search will look at
+     * It adds up the records in the cells that can hold records within the distance without checking any records
+     * @param lat double: the latitude of the point
+     * @param lon double: the longitude of the point
+     * @param radiusKm double: the distance in kilometres
+     * @return int: the number of records in the cells
+     */
+    public int estimateRadius(double lat, double lon, double radiusKm)
+    {
+        int count = 0;
+        IntList list;
+        int[] range = cellRange( lat, lon, radiusKm );
+
+        for (int row = range[0]; row <= range[1]; row++)
+        {
+            for (int col = range[2]; col <= range[3]; col++)
+            {
+                list = cells[row * COLUMNS + Math.floorMod( col, COLUMNS )];
+                if (list != null)
+                {
+                    count += list.size();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Method to find the records nearest to a point, measured along the surface of the earth
+     * The cells within FIRST_RADIUS_KM are checked first, then the distance is doubled until enough
+     * records are found, so a point among many quakes only looks at the cells close to it.
+     * Each round only looks at the ring of cells that were not in the last round, and every record in
+     * them is offered to the heap, so no record is read twice.  Once the heap is full and its farthest
+     * record is within the distance, no record in a cell not looked at yet can be nearer
+     * @param lat double: the latitude of the point
+     * @param lon double: the longitude of the point
+     * @param k int: the number of records to find
+     * @param query QuakeQuery: conditions the records must also match, already prepared, or null for any record
+     * @return IntList: the indexes of up to k records, nearest first, with ties in the order they are stored
+     */
+    public IntList nearest(double lat, double lon, int k, QuakeQuery query)
+    {
+        BoundedHeap nearest = new BoundedHeap( Math.min( k, store.size() ) );  // no more than the records stored
+        IntList list;
+        int[] range;
+        int[] inner = null;                     // cells looked at in an earlier round, or null
+        int id;
+        double radius = FIRST_RADIUS_KM;
+        boolean done = k < 1;
+
+        while (!done)
+        {
+            range = cellRange( lat, lon, radius );
+            for (int row = range[0]; row <= range[1]; row++)
+            {
+                for (int col = range[2]; col <= range[3]; col++)
+                {
+                    if (inner == null || !inRange( row, col, inner ))
+                    {
+                        list = cells[row * COLUMNS + Math.floorMod( col, COLUMNS )];
+                        for (int j = 0; list != null && j < list.size(); j++)
+                        {
+                            id = list.get( j );
+                            if (query == null || query.matches( store, id ))
+                            {
+                                nearest.add( id, distanceKm( lat, lon, store.getLatitude( id ),
+                                        store.getLongitude( id ) ) );
+                            }
+                        }
+                    }
+                }
+            }
+
+            // every record within the radius has been offered, so a full heap within it holds the nearest records
+            inner = range;
+            if (radius == Double.POSITIVE_INFINITY || (nearest.isFull() && nearest.getLargestKey() <= radius))
+            {
+                done = true;
+            }
+            else
+            {
+                radius = radius * 2 < HALF_CIRCUMFERENCE_KM ? radius * 2 : Double.POSITIVE_INFINITY;
+            }
+        }
+
+        return nearest.takeSorted();
+    }
+
+    /**
+     * Method to check if a cell is in a range of cells from cellRange
+     * The columns of the range may run past either end of the grid, so the column is compared after wrapping
+     * @param row int: the row of the cell
+     * @param col int: the column of the cell, which may also run past either end of the grid
+     * @param range int[]: the first row, last row, first column and last column of the range
+     * @return boolean: true if the cell is in the range, false if not
+     */
+    private static boolean inRange(int row, int col, int[] range)
+    {
+        return range[0] <= row && row <= range[1] &&
+                (range[3] - range[2] + 1 >= COLUMNS || Math.floorMod( col - range[2], COLUMNS ) <= range[3] - range[2]);
+    }
+
+    /**
+     * Method to check if a longitude is in a range of longitudes
+     * @param lon double: the longitude
+     * @param minLon double: the west end of the range
+     * @param maxLon double: the east end of the range, less than minLon if the range crosses longitude 180
+     * @return boolean: true if the longitude is in the range, false if not
+     */
+    public static boolean inLongitudes(double lon, double minLon, double maxLon)
+    {
+        boolean inRange;
+
+        if (minLon <= maxLon)
+        {
+            inRange = minLon <= lon && lon <= maxLon;
+        }
+        else                                    // range crosses longitude 180
+        {
+            inRange = minLon <= lon || lon <= maxLon;
+        }
+        return inRange;
+    }
+
+    /**
+     * Method to find the distance between two points along the surface of the earth with the haversine formula
+     * @param lat1 double: the latitude of the first point
+     * @param lon1 double: the longitude of the first point
+     * @param lat2 double: the latitude of the second point
+     * @param lon2 double: the longitude of the second point
+     * @return double: the distance in kilometres
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2)
+    {
+        double sinLat = Math.sin( Math.toRadians( lat2 - lat1 ) / 2 );
+        double sinLon = Math.sin( Math.toRadians( lon2 - lon1 ) / 2 );
+        double a = sinLat * sinLat +
+                Math.cos( Math.toRadians( lat1 ) ) * Math.cos( Math.toRadians( lat2 ) ) * sinLon * sinLon;
+
+        return 2 * EARTH_RADIUS_KM * Math.asin( Math.min( 1.0, Math.sqrt( a ) ) );
+    }
+
+    /**
+     * Method to find the cells that can hold records within a distance of a point
+     * The columns may run past either end of the grid when the distance crosses longitude 180, so each
+     * column must be wrapped with Math.floorMod.  One extra column is taken on each side so records on
+     * the edge of a cell, or at longitude 180, are not missed
+     * @param lat double: the latitude of the point
+     * @param lon double: the longitude of the point
+     * @param radiusKm double: the distance in kilometres
+     * @return int[]: the first row, last row, first column and last column to look at
+     */
+    private int[] cellRange(double lat, double lon, double radiusKm)
+    {
+        double angle = radiusKm / EARTH_RADIUS_KM;              // distance as an angle at the centre of the earth
+        double minLat = lat - Math.toDegrees( angle );
+        double maxLat = lat + Math.toDegrees( angle );
+        double lonSpread;                       // largest difference in longitude of a point within the distance
+        int firstCol = 0, lastCol = COLUMNS - 1;
+
+        if (minLat > -90 && maxLat < 90)         // a circle around a pole covers every longitude
+        {
+            lonSpread = Math.toDegrees( Math.asin( Math.sin( angle ) / Math.cos( Math.toRadians( lat ) ) ) );
+            firstCol = (int) Math.floor( (lon - lonSpread + 180) / CELL_SIZE ) - 1;
+            lastCol = (int) Math.floor( (lon + lonSpread + 180) / CELL_SIZE ) + 1;
+            if (lastCol - firstCol + 1 >= COLUMNS)
+            {
+                firstCol = 0;
+                lastCol = COLUMNS - 1;
+            }
+        }
+
+        return new int[] { rowOf( minLat ), rowOf( maxLat ), firstCol, lastCol };
+    }
+
+    /**
+     * Method to find the last grid column of a range of longitudes
+     * A range that crosses longitude 180 gives a column past the end of the grid, which is wrapped with
+     * col % COLUMNS, and no column is given twice
+     * @param minLon double: the west end of the range
+     * @param maxLon double: the east end of the range
+     * @return int: the last column, from columnOf( minLon ) to columnOf( minLon ) + COLUMNS - 1
+     */
+    private int lastColumnOf(double minLon, double maxLon)
+    {
+        int first = columnOf( minLon );
+        int last = columnOf( maxLon );
+
+        if (minLon > maxLon)
+        {
+            last = Math.min( last + COLUMNS, first + COLUMNS - 1 );
+        }
+        return last;
+    }
+
+    /**
+     * Method to find the cell number of a location
+     * Locations outside of the globe are put in the nearest edge cell
+     * @param lat double: the latitude
+     * @param lon double: the longitude
+     * @return int: the cell number
+     */
+    public static int cellOf(double lat, double lon)
+    {
+        return rowOf( lat ) * COLUMNS + columnOf( lon );
+    }
+
+    /**
+     * Method to find the grid row of a latitude
+     * @param lat double: the latitude
+     * @return int: the row from 0 to ROWS - 1
+     */
+    private static int rowOf(double lat)
+    {
+        int row = (int) Math.floor( (lat + 90) / CELL_SIZE );
+
+        return Math.max( 0, Math.min( ROWS - 1, row ) );
+    }
+
+    /**
+     * Method to find the grid column of a longitude
+     * @param lon double: the longitude
+     * @return int: the column from 0 to COLUMNS - 1
+     */
+    private static int columnOf(double lon)
+    {
+        int col = (int) Math.floor( (lon + 180) / CELL_SIZE );
+
+        return Math.max( 0, Math.min( COLUMNS - 1, col ) );
+    }
+}
@@ -0,0 +1,194 @@
+/************************************************************************************************
+ *  This class handles an index of the records of a QuakeStore in buckets by a hash code
+ *
+ *  The buckets are chains kept in int arrays: the first record of each bucket, and for each record
+ *  the next record in its bucket, so no objects are created for the entries.  The number of buckets
+ *  doubles when there are more records than buckets.
+ *
+ *  Subclasses choose the hash code by implementing hashOf, and look for records by walking the
+ *  bucket of a hash code with firstInBucket and nextInBucket
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.util.Arrays;
+
+public abstract class QuakeHashIndex implements QuakeIndex
+{
+    protected static final int NONE = -1;                   // end of a bucket chain
+    private static final int INITIAL_BUCKETS = 1024;        // must be a power of 2
+
+    protected QuakeStore store;
+
+    private int[] first = new int[INITIAL_BUCKETS];         // element b is the first record in bucket b
+    private IntList next = new IntList();                   // element i is the record after record i in its bucket
+    private int numOfRecords;
+
+    /**
+     * Constructor to create the index over a store
+     * The index must be registered with store.addIndex to be kept up to date
+     * @param store QuakeStore: the store holding the records
+     */
+    public QuakeHashIndex(QuakeStore store)
+    {
+        this.store = store;
+        Arrays.fill( first, NONE );
+        numOfRecords = 0;
+    }
+
+    /**
+     * Method to get the hash code of a record
+     * @param id int: the index of the record in the store
+     * @return int: the hash code that chooses the bucket of the record
+     */
+    protected abstract int hashOf(int id);
+
+    /**
+     * Method to add a record to the front of its bucket
+     * @param id int: the index of the new record
+     */
+    @Override
+    public void recordAdded(int id)
+    {
+        int bucket;
+
+        if (numOfRecords == first.length)
+        {
+            rehash( first.length * 2 );
+        }
+
+        while (next.size() <= id)
+        {
+            next.add( NONE );
+        }
+        bucket = bucketOf( hashOf( id ) );
+        next.set( id, first[bucket] );
+        first[bucket] = id;
+        numOfRecords++;
+    }
+
+    /**
+     * Method to remove a record from its bucket
+     * @param id int: the index of the record being removed
+     */
+    @Override
+    public void recordRemoved(int id)
+    {
+        unlink( id, bucketOf( hashOf( id ) ) );
+        numOfRecords--;
+    }
+
+    /**
+     * Method to change the index of a record in its bucket
+     * @param from int: the old index of the record
+     * @param to int: the new index of the record
+     */
+    @Override
+    public void recordMoved(int from, int to)
+    {
+        int bucket = bucketOf( hashOf( from ) );
+
+        unlink( from, bucket );
+        next.set( to, first[bucket] );
+        first[bucket] = to;
+    }
+
+    /**
+     * Method to renumber the records after some are removed and the rest move down to fill the gaps
+     * The removed records are already out of their chains, so every link is to a record that is kept
+     * @param newIds int[]: element i is the new index of the record that had index i, or -1 if it was removed
+     */
+    @Override
+    public void recordsRenumbered(int[] newIds)
+    {
+        for (int b = 0; b < first.length; b++)
+        {
+            if (first[b] != NONE)
+            {
+                first[b] = newIds[first[b]];
+            }
+        }
+        next.compact( newIds );
+        for (int id = 0; id < next.size(); id++)
+        {
+            if (next.get( id ) != NONE)
+            {
+                next.set( id, newIds[next.get( id )] );
+            }
+        }
+    }
+
+    /**
+     * Method to get the first record in the bucket of a hash code
+     * The bucket also holds records with other hash codes, so each record must still be checked
+     * @param hash int: the hash code
+     * @return int: the index of the first record in the bucket, or NONE if it is empty
+     */
+    protected int firstInBucket(int hash)
+    {
+        return first[bucketOf( hash )];
+    }
+
+    /**
+     * Method to get the record after a record in its bucket
+     * @param id int: the index of a record in the index
+     * @return int: the index of the next record in the bucket, or NONE if it is the last
+     */
+    protected int nextInBucket(int id)
+    {
+        return next.get( id );
+    }
+
+    /**
+     * Method to take a record out of a bucket chain
+     * @param id int: the index of the record
+     * @param bucket int: the bucket the record is in
+     */
+    private void unlink(int id, int bucket)
+    {
+        int previous;
+
+        if (first[bucket] == id)
+        {
+            first[bucket] = next.get( id );
+        }
+        else
+        {
+            previous = first[bucket];
+            while (next.get( previous ) != id)
+            {
+                previous = next.get( previous );
+            }
+            next.set( previous, next.get( id ) );
+        }
+    }
+
+    /**
+     * Method to find the bucket of a hash code
+     * The high bits are mixed into the low bits, since only the low bits choose the bucket
+     * @param hash int: the hash code
+     * @return int: the bucket for the hash code
+     */
+    private int bucketOf(int hash)
+    {
+        return (hash ^ (hash >>> 16)) & (first.length - 1);
+    }
+
+    /**
+     * Method to put the records in the index into a new number of buckets
+     * @param numOfBuckets int: the new number of buckets, a power of 2
+     */
+    private void rehash(int numOfBuckets)
+    {
+        int bucket;
+
+        first = new int[numOfBuckets];
+        Arrays.fill( first, NONE );
+        for (int id = 0; id < numOfRecords; id++)       // the records in the index are the first numOfRecords in the store
+        {
+            bucket = bucketOf( hashOf( id ) );
+            next.set( id, first[bucket] );
+            first[bucket] = id;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/************************************************************************************************
+ *  This interface is for the indexes kept over the records of a QuakeStore
+ *
+ *  The store calls these methods whenever a record is added, removed or moved to another index,
+ *  so every index stays consistent with the records without being rebuilt
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public interface QuakeIndex
+{
+    /**
+     * Method called after a record is added to the store, or after QuakeStore.replace writes new data over
+     * a record that recordRemoved was called for
+     * @param id int: the index of the new record
+     */
+    void recordAdded(int id);
+
+    /**
+     * Method called before a record is removed from the store, while its data can still be read
+     * @param id int: the index of the record being removed
+     */
+    void recordRemoved(int id);
+
+    /**
+     * Method called when a record is moved to a different index in the store
+     * The record data can be read at either index when this is called
+     * @param from int: the old index of the record
+     * @param to int: the new index of the record
+     */
+    void recordMoved(int from, int to);
+
+    /**
+     * Method called after QuakeStore.removeAllInOrder removes records and moves the rest down to fill the gaps
+     * recordRemoved has already been called for each removed record, so the index only needs to change the
+     * index of every record it holds.  The records keep their order, so newIds increases over the records kept
+     * @param newIds int[]: element i is the new index of the record that had index i, or -1 if it was removed
+     */
+    void recordsRenumbered(int[] newIds);
+}
@@ -0,0 +1,147 @@
+/************************************************************************************************
+ *  This class handles an index of the records in a QuakeStore by location
+ *
+ *  For each location id it holds the indexes of the records with that location, so the records of
+ *  the names found in the LocationDictionary are listed without looking at any other record.
+ *
+ *  Each record's position in its list is saved so records are removed and moved in O(1)
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.util.Arrays;
+
+public class QuakeLocationIndex implements QuakeIndex
+{
+    private QuakeStore store;
+    private IntList[] lists = new IntList[16];              // element l lists the records with location id l
+    private IntList positionInList = new IntList();         // element i is the position of record i in its list
+
+    /**
+     * Constructor to create the index over a store
+     * The index must be registered with store.addIndex to be kept up to date
+     * @param store QuakeStore: the store holding the records
+     */
+    public QuakeLocationIndex(QuakeStore store)
+    {
+        this.store = store;
+    }
+
+    /**
+     * Method to add a record to the list of its location
+     * @param id int: the index of the new record
+     */
+    @Override
+    public void recordAdded(int id)
+    {
+        int locId = store.getLocationId( id );
+
+        if (locId >= lists.length)
+        {
+            lists = Arrays.copyOf( lists, Math.max( lists.length * 2, locId + 1 ) );
+        }
+        if (lists[locId] == null)
+        {
+            lists[locId] = new IntList();
+        }
+
+        while (positionInList.size() <= id)
+        {
+            positionInList.add( 0 );
+        }
+        positionInList.set( id, lists[locId].size() );
+        lists[locId].add( id );
+    }
+
+    /**
+     * Method to remove a record from the list of its location
+     * @param id int: the index of the record being removed
+     */
+    @Override
+    public void recordRemoved(int id)
+    {
+        IntList list = lists[store.getLocationId( id )];
+        int position = positionInList.get( id );
+
+        list.removeSwap( position );
+        if (position < list.size())             // another record was moved into the position
+        {
+            positionInList.set( list.get( position ), position );
+        }
+    }
+
+    /**
+     * Method to change the index of a record in the list of its location
+     * @param from int: the old index of the record
+     * @param to int: the new index of the record
+     */
+    @Override
+    public void recordMoved(int from, int to)
+    {
+        int position = positionInList.get( from );
+
+        lists[store.getLocationId( from )].set( position, to );
+        positionInList.set( to, position );
+    }
+
+    /**
+     * Method to renumber the records after some are removed and the rest move down to fill the gaps
+     * @param newIds int[]: element i is the new index of the record that had index i, or -1 if it was removed
+     */
+    @Override
+    public void recordsRenumbered(int[] newIds)
+    {
+        for (IntList list : lists)
+        {
+            if (list != null)
+            {
+                list.renumber( newIds );
+            }
+        }
+        positionInList.compact( newIds );
+    }
+
+    /**
+     * Method to find the records with any of a list of locations
+     * @param locationIds IntList: the location ids
+     * @return IntList: the indexes of the records found, in increasing order
+     */
+    public IntList search(IntList locationIds)
+    {
+        IntList found = new IntList( Math.max( 1, count( locationIds ) ) );
+        int locId;
+
+        for (int k = 0; k < locationIds.size(); k++)
+        {
+            locId = locationIds.get( k );
+            if (locId < lists.length && lists[locId] != null)
+            {
+                found.addAll( lists[locId] );
+            }
+        }
+
+        found.sort();                           // keep the order of the records in the store
+        return found;
+    }
+
+    /**
+     * Method to count the records with any of a list of locations, without listing them
+     * @param locationIds IntList: the location ids
+     * @return int: the number of records with the locations
+     */
+    public int count(IntList locationIds)
+    {
+        int count = 0;
+        int locId;
+
+        for (int k = 0; k < locationIds.size(); k++)
+        {
+            locId = locationIds.get( k );
+            if (locId < lists.length && lists[locId] != null)
+            {
+                count += lists[locId].size();
+            }
+        }
+        return count;
+    }
+}
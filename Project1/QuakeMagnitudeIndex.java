@@ -0,0 +1,201 @@
+/************************************************************************************************
+ *  This class handles an index of the records of a QuakeStore sorted by magnitude
+ *
+ *  Along with the sorted index it keeps a histogram of the magnitudes in bins of 0.1, so the number
+ *  of quakes at or above a magnitude of one decimal place is found without a search.  Listing the
+ *  quakes only looks at the records that match.
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public class QuakeMagnitudeIndex extends QuakeSortedIndex
+{
+    public static final int BINS_PER_UNIT = 10;                     // bins of 0.1 magnitude
+    public static final int NUM_OF_BINS = 10 * BINS_PER_UNIT + 1;   // 0.0 to 9.9, and 10.0 and over
+
+    // largest key counted by an open range, so magnitudes that are not a number, which sort last, are left out
+    private static final long MAX_KEY = magnitudeKey( Double.POSITIVE_INFINITY );
+
+    private int[] binCount = new int[NUM_OF_BINS];
+    private int[] countAtLeast = new int[NUM_OF_BINS];  // element b is the number of records in bin b and above
+    private boolean countsChanged = false;
+
+    /**
+     * Constructor to create the index over a store
+     * @param store QuakeStore: the store holding the records
+     */
+    public QuakeMagnitudeIndex(QuakeStore store)
+    {
+        super( store );
+    }
+
+    /**
+     * Method to get the key of a record
+     * The bits of the magnitude are changed so the keys sort in the same order as the magnitudes
+     * @param id int: the index of the record in the store
+     * @return long: the key of the magnitude of the record
+     */
+    @Override
+    protected long keyOf(int id)
+    {
+        return magnitudeKey( store.getRichter( id ) );
+    }
+
+    /**
+     * Method to add a record to the index and the histogram
+     * @param id int: the index of the new record
+     */
+    @Override
+    public void recordAdded(int id)
+    {
+        int bin = binOf( store.getRichter( id ) );
+
+        super.recordAdded( id );
+        if (bin >= 0)
+        {
+            binCount[bin]++;
+            countsChanged = true;
+        }
+    }
+
+    /**
+     * Method to remove a record from the index and the histogram
+     * @param id int: the index of the record being removed
+     */
+    @Override
+    public void recordRemoved(int id)
+    {
+        int bin = binOf( store.getRichter( id ) );
+
+        super.recordRemoved( id );
+        if (bin >= 0)
+        {
+            binCount[bin]--;
+            countsChanged = true;
+        }
+    }
+
+    /**
+     * Method to count the records with a magnitude of at least minMag
+     * A magnitude of one decimal place from 0.0 to 10.0 is counted from the histogram,
+     * other magnitudes are counted with the sorted index.  Magnitudes that are not a number are never counted,
+     * the same as in the histogram
+     * @param minMag double: the minimum magnitude
+     * @return int: the number of records with a magnitude of at least minMag
+     */
+    public int countAtLeast(double minMag)
+    {
+        int count;
+        int bin = binOf( minMag );
+
+        if (bin >= 0 && minMag == binStart( bin ))
+        {
+            addUpCounts();
+            count = countAtLeast[bin];
+        }
+        else
+        {
+            count = count( magnitudeKey( minMag ), MAX_KEY );
+        }
+
+        return count;
+    }
+
+    /**
+     * Method to add up the bins again from the top if the histogram has changed since they were last added
+     * It is synchronized so counts made at the same time by several threads add up the bins only once
+     */
+    private synchronized void addUpCounts()
+    {
+        if (countsChanged)
+        {
+            countAtLeast[NUM_OF_BINS - 1] = binCount[NUM_OF_BINS - 1];
+            for (int b = NUM_OF_BINS - 2; b >= 0; b--)
+            {
+                countAtLeast[b] = countAtLeast[b + 1] + binCount[b];
+            }
+            countsChanged = false;
+        }
+    }
+
+    /**
+     * Method to find the records with a magnitude of at least minMag
+     * @param minMag double: the minimum magnitude
+     * @return IntList: the indexes of the records found, in increasing order
+     */
+    public IntList searchAtLeast(double minMag)
+    {
+        return search( magnitudeKey( minMag ), MAX_KEY );
+    }
+
+    /**
+     * Method to find the records with a magnitude from minMag to maxMag
+     * @param minMag double: the minimum magnitude
+     * @param maxMag double: the maximum magnitude
+     * @return IntList: the indexes of the records found, in increasing order
+     */
+    public IntList search(double minMag, double maxMag)
+    {
+        return search( magnitudeKey( minMag ), magnitudeKey( maxMag ) );
+    }
+
+    /**
+     * Method to count the records with a magnitude from minMag to maxMag
+     * @param minMag double: the minimum magnitude
+     * @param maxMag double: the maximum magnitude
+     * @return int: the number of records with a magnitude in the range
+     */
+    public int count(double minMag, double maxMag)
+    {
+        return count( magnitudeKey( minMag ), magnitudeKey( maxMag ) );
+    }
+
+    /**
+     * Method to change a magnitude into a key that sorts in the same order
+     * @param mag double: the magnitude
+     * @return long: the key for the magnitude
+     */
+    public static long magnitudeKey(double mag)
+    {
+        long bits = Double.doubleToLongBits( mag + 0.0 );   // adding 0.0 changes -0.0 to 0.0
+
+        // negative numbers sort backwards as bits, so flip all but the sign bit
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Method to find the histogram bin of a magnitude
+     * @param mag double: the magnitude
+     * @return int: the bin of the magnitude, or -1 if the magnitude is below 0.0
+     */
+    private static int binOf(double mag)
+    {
+        int bin = -1;
+
+        if (mag >= 0.0)
+        {
+            bin = (int) Math.min( NUM_OF_BINS - 1, Math.floor( mag * BINS_PER_UNIT ) );
+
+            // correct for rounding in the multiplication so the bin starts compare exactly
+            if (mag < binStart( bin ))
+            {
+                bin--;
+            }
+            else if (bin < NUM_OF_BINS - 1 && mag >= binStart( bin + 1 ))
+            {
+                bin++;
+            }
+        }
+        return bin;
+    }
+
+    /**
+     * Method to get the smallest magnitude in a bin
+     * @param bin int: the bin
+     * @return double: the magnitude the bin starts at, the same value as the decimal written with one place
+     */
+    private static double binStart(int bin)
+    {
+        return bin / (double) BINS_PER_UNIT;
+    }
+}
@@ -75,6 +75,13 @@ public class QuakeMain
                             "R, minLat, maxLat, minLon, maxLon\n" +
                             "D, minDate, maxDate\n" +
                             "M, minMag\n" +
+                            "C, minMag\n" +
+                            "Q, condition, condition ...\n" +
+                            "L, words\n" +
+                            "N, lat, lon, count\n" +
+                            "G, group, condition, condition ...\n" +
+                            "T, count, condition, condition ...\n" +
+                            "E, seconds, degrees  or  E, OFF\n" +
                             "Enter HELP for more information on the commands.";
 
         System.out.println( message );
@@ -90,13 +97,45 @@ public class QuakeMain
                             "R, minLat, maxLat, minLon, maxLon\n" +
                             "List all quakes in the dataset by region with north/south boundary between\n" +
                             "minLat and maxLat, and east/west boundary between minLon and maxLon\n" +
-                            "Latitudes are between -90.0 amd 90.0 degrees and Longitudes between -180.0 and 180.0 degrees.\n\n" +
+                            "Latitudes are between -90.0 amd 90.0 degrees and Longitudes between -180.0 and 180.0 degrees.\n" +
+                            "If minLon is more than maxLon the region crosses longitude 180, such as R, -30, 0, 170, -170\n\n" +
                             "D, minDate, maxDate\n" +
                             "List all quakes in the dataset by date with the calendar date of the quake from\n" +
                             "minDate to maxDate.  Dates are to be in the format of YYYY-MM-DD.\n\n" +
                             "M, minMag\n" +
                             "List all quakes in the dataset with magnitude minMag or greater\n" +
                             "Magnitudes need to be between 4.0 and 10.0.\n\n" +
+                            "C, minMag\n" +
+                            "Count the quakes in the dataset with magnitude minMag or greater\n\n" +
+                            "Q, condition, condition ...\n" +
+                            "List all quakes in the dataset that meet every condition.  The conditions are:\n" +
+                            "R minLat maxLat minLon maxLon    quakes in the region\n" +
+                            "P lat lon km                     quakes within km kilometres of the point\n" +
+                            "D minDate maxDate                quakes from minDate to maxDate (YYYY-MM-DD)\n" +
+                            "T minTime maxTime                quakes from minTime to maxTime of day (HH:MM)\n" +
+                            "M minMag [maxMag]                quakes with magnitude from minMag to maxMag\n" +
+                            "L text                           quakes with the text in the location\n" +
+                            "W words                          quakes with all of the words in the location\n" +
+                            "For example: Q, M 5.0, R 30 45 -125 -115, D 2015-01-01 2015-12-31\n\n" +
+                            "L, words\n" +
+                            "List all quakes in the dataset with every one of the words in the location, in any order\n" +
+                            "Whole words are matched without regard to case, such as L, california southern\n\n" +
+                            "N, lat, lon, count\n" +
+                            "List the count quakes in the dataset nearest to the point at lat and lon, nearest first\n" +
+                            "Distances are measured along the surface of the earth.\n\n" +
+                            "G, group, condition, condition ...\n" +
+                            "Count the quakes that meet every condition in each group, with the largest and mean magnitude\n" +
+                            "The group is DAY, MONTH, YEAR or CELL (each 1 degree cell of latitude and longitude)\n" +
+                            "The conditions are the same as for Q, and may be left out, such as G, YEAR, M 6.0\n\n" +
+                            "T, count, condition, condition ...\n" +
+                            "List the count largest quakes that meet every condition, largest first\n" +
+                            "The conditions are the same as for Q, and may be left out, such as T, 100, R 30 45 -125 -115\n\n" +
+                            "E, seconds, degrees\n" +
+                            "Treat quakes within seconds of time and degrees of latitude and longitude of each other as\n" +
+                            "revisions of the same event.  Only the latest revision of each event is kept, in the place of\n" +
+                            "the first, for the quakes already loaded and those added to the data file later, such as E, 2, 0.1\n" +
+                            "E, OFF\n" +
+                            "Stop matching revisions, so quakes added to the data file later are all kept\n\n" +
                             "HELP\n" +
                             "Displays this help message";
 
@@ -141,10 +180,17 @@ public class QuakeMain
         boolean anotherRequest = true;
         String message, input;
         char requestType = ' ';
+        int added;                                  // records appended to the data file since the last request
         Scanner keyboard = new Scanner(System.in);
         input = keyboard.nextLine();
         input = input.toUpperCase();                // converts string to upper case to ease processing
 
+        added = quakeData.updateFromFile();         // add any records appended to the data file
+        if (added > 0)
+        {
+            System.out.println( added + " new records loaded." );
+        }
+
         if (input.length()>0)
         {
             requestType = input.charAt( 0 );
@@ -162,6 +208,27 @@ public class QuakeMain
             case 'M':
                 processMRequest(input);
                 break;
+            case 'C':
+                processCRequest(input);
+                break;
+            case 'Q':
+                processQRequest(input);
+                break;
+            case 'L':
+                processLRequest(input);
+                break;
+            case 'N':
+                processNRequest(input);
+                break;
+            case 'G':
+                processGRequest(input);
+                break;
+            case 'T':
+                processTRequest(input);
+                break;
+            case 'E':
+                processERequest(input);
+                break;
             case 'H':
                 displayHelpMessage();
                 break;
@@ -181,6 +248,47 @@ public class QuakeMain
         return anotherRequest;
     }
 
+    /**
+     * Method that handles setting the tolerances used to find revisions of the same event
+     * Revisions already loaded are replaced at once, and those added to the data file later as they are read
+     * @param str String: Input string received from the user for the event tolerances, or E, OFF
+     */
+    public static void processERequest(String str)
+    {
+        double seconds = 0.0, degrees = 0.0;
+        String message = "";
+
+        StringTokenizer request = new StringTokenizer( str , ",");
+
+        try                         // used to catch processing errors
+        {
+            request.nextToken();    // skips the first token - The E
+            message = request.nextToken().trim();
+            if (message.equals( "OFF" ))
+            {
+                quakeData.clearDuplicateTolerance();
+                message = "Revised events are no longer matched.";
+            }
+            else
+            {
+                seconds = Double.parseDouble( message );
+                degrees = Double.parseDouble( request.nextToken() );
+                if (!(seconds >= 0.0 && degrees >= 0.0))
+                {
+                    throw new NumberFormatException( "The tolerances must not be negative" );
+                }
+                message = quakeData.setDuplicateTolerance( seconds, degrees ) + " revised events replaced.";
+            }
+        }
+        catch (NumberFormatException | NoSuchElementException e)
+        {
+            message =   "The attempt to set the event tolerances was not in the proper format, the correct format is:\n" +
+                    "E, seconds, degrees  or  E, OFF\n";
+        }
+
+        System.out.println( message );
+    }
+
     /**
      * Method that handles the processing quake data by region
      * It prompts the user for a filename if the user wishes to save to a file then calls a method to process the request
@@ -316,6 +424,351 @@ public class QuakeMain
 
     }
 
+    /**
+     * Method that handles counting quakes by magnitude
+     * The count is displayed to the console
+     * @param str String: Input string received from the user for the magnitude count
+     */
+    public static void processCRequest(String str)
+    {
+        double magnitude = 0.0;
+        String message = "";
+
+        try                         // used to catch processing errors
+        {
+            magnitude = Double.parseDouble( str.substring( 2 ) );       // gets the double after the "C,"
+            message = quakeData.magnitudeCount( magnitude ) + " quakes of magnitude " + magnitude + " or greater.";
+        }
+        catch (NumberFormatException | IndexOutOfBoundsException e)
+        {
+            message =   "The attempt to count records was not in the proper format, the correct format is:\n" +
+                    "C, minMag\n";
+        }
+
+        System.out.println( message );
+    }
+
+    /**
+     * Method that handles a query of quake data using several conditions
+     * It prompts the user for a filename if the user wishes to save to a file then calls a method to process the request
+     * @param str String: Input string received from the user for the query
+     */
+    public static void processQRequest(String str)
+    {
+        QuakeQuery query = new QuakeQuery();
+        String message = "";
+        boolean validRequest = true;
+        String fileName = "";                    // filename to use to store data if requested
+        StringTokenizer request = new StringTokenizer( str , ",");
+
+        try                         // used to catch processing errors
+        {
+            request.nextToken();    // skips the first token - The Q
+
+            while (request.hasMoreTokens())
+            {
+                addCondition( query, request.nextToken().trim() );
+            }
+        }
+        catch (NumberFormatException | NoSuchElementException | IndexOutOfBoundsException e)
+        {
+            message =   "The attempt to search for records was not in the proper format, the correct format is:\n" +
+                        "Q, condition, condition ...\n" +
+                        "Type HELP to view the conditions\n";
+            System.out.println( message );
+            validRequest = false;
+        }
+
+        if (validRequest)
+        {
+            fileName = filenameRequest();                  // check if user wishes to save to a file
+
+            if (fileName.isEmpty())                        // user did not enter filename - display to console
+            {
+                quakeData.querySearch( query );
+            }
+            else
+            {
+                quakeData.querySearch( query, fileName );
+            }
+        }
+
+    }
+
+    /**
+     * Method that handles grouping quake data and totalling each group
+     * It prompts the user for a filename if the user wishes to save to a file then calls a method to process the request
+     * @param str String: Input string received from the user for the grouping
+     */
+    public static void processGRequest(String str)
+    {
+        QuakeQuery query = new QuakeQuery();
+        String message = "";
+        String group;
+        int groupBy = QuakeAggregate.BY_DAY;
+        boolean validRequest = true;
+        String fileName = "";                    // filename to use to store data if requested
+        StringTokenizer request = new StringTokenizer( str , ",");
+
+        try                         // used to catch processing errors
+        {
+            request.nextToken();    // skips the first token - The G
+            group = request.nextToken().trim();
+
+            switch (group)
+            {
+                case "DAY":
+                    groupBy = QuakeAggregate.BY_DAY;
+                    break;
+                case "MONTH":
+                    groupBy = QuakeAggregate.BY_MONTH;
+                    break;
+                case "YEAR":
+                    groupBy = QuakeAggregate.BY_YEAR;
+                    break;
+                case "CELL":
+                    groupBy = QuakeAggregate.BY_CELL;
+                    break;
+                default:
+                    throw new NoSuchElementException();
+            }
+
+            while (request.hasMoreTokens())
+            {
+                addCondition( query, request.nextToken().trim() );
+            }
+        }
+        catch (NumberFormatException | NoSuchElementException | IndexOutOfBoundsException e)
+        {
+            message =   "The attempt to group records was not in the proper format, the correct format is:\n" +
+                        "G, group, condition, condition ...\n" +
+                        "Type HELP to view the groups and conditions\n";
+            System.out.println( message );
+            validRequest = false;
+        }
+
+        if (validRequest)
+        {
+            fileName = filenameRequest();                  // check if user wishes to save to a file
+
+            if (fileName.isEmpty())                        // user did not enter filename - display to console
+            {
+                quakeData.groupSearch( query, groupBy );
+            }
+            else
+            {
+                quakeData.groupSearch( query, groupBy, fileName );
+            }
+        }
+
+    }
+
+    /**
+     * Method that handles listing the largest quakes that meet some conditions
+     * It prompts the user for a filename if the user wishes to save to a file then calls a method to process the request
+     * @param str String: Input string received from the user for the largest quake search
+     */
+    public static void processTRequest(String str)
+    {
+        QuakeQuery query = new QuakeQuery();
+        String message = "";
+        int count = 0;
+        boolean validRequest = true;
+        String fileName = "";                    // filename to use to store data if requested
+        StringTokenizer request = new StringTokenizer( str , ",");
+
+        try                         // used to catch processing errors
+        {
+            request.nextToken();    // skips the first token - The T
+            count = Integer.parseInt( request.nextToken().trim() );
+            if (count < 1)
+            {
+                throw new NumberFormatException( "The count must be at least 1" );
+            }
+
+            while (request.hasMoreTokens())
+            {
+                addCondition( query, request.nextToken().trim() );
+            }
+        }
+        catch (NumberFormatException | NoSuchElementException | IndexOutOfBoundsException e)
+        {
+            message =   "The attempt to search for records was not in the proper format, the correct format is:\n" +
+                        "T, count, condition, condition ...\n" +
+                        "Type HELP to view the conditions\n";
+            System.out.println( message );
+            validRequest = false;
+        }
+
+        if (validRequest)
+        {
+            fileName = filenameRequest();                  // check if user wishes to save to a file
+
+            if (fileName.isEmpty())                        // user did not enter filename - display to console
+            {
+                quakeData.largestSearch( query, count );
+            }
+            else
+            {
+                quakeData.largestSearch( query, count, fileName );
+            }
+        }
+
+    }
+
+    /**
+     * Method that adds one condition of a Q, G or T request to a query
+     * The condition is a letter followed by its values, such as M 5.0 or R 30 45 -125 -115
+     * @param query QuakeQuery: the query to add the condition to
+     * @param condition String: the condition, without spaces before or after it
+     * @throws NoSuchElementException if the condition letter is not known or values are missing
+     * @throws NumberFormatException if a value is not a number
+     */
+    public static void addCondition(QuakeQuery query, String condition)
+    {
+        StringTokenizer values = new StringTokenizer( condition.substring( 1 ) );
+
+        switch (condition.charAt( 0 ))
+        {
+            case 'R':
+                query.setRegion( Double.parseDouble( values.nextToken() ), Double.parseDouble( values.nextToken() ),
+                        Double.parseDouble( values.nextToken() ), Double.parseDouble( values.nextToken() ) );
+                break;
+            case 'P':
+                query.setCircle( Double.parseDouble( values.nextToken() ), Double.parseDouble( values.nextToken() ),
+                        Double.parseDouble( values.nextToken() ) );
+                break;
+            case 'D':
+                query.setDates( new Dates( values.nextToken() ), new Dates( values.nextToken() ) );
+                break;
+            case 'T':
+                query.setTimes( timeRequest( values.nextToken() ), timeRequest( values.nextToken() ) );
+                break;
+            case 'M':
+                query.setMagnitudes( Double.parseDouble( values.nextToken() ),
+                        values.hasMoreTokens() ? Double.parseDouble( values.nextToken() ) : Double.MAX_VALUE );
+                break;
+            case 'L':
+                query.setLocationText( condition.substring( 1 ) );
+                break;
+            case 'W':
+                query.setLocationWords( condition.substring( 1 ) );
+                break;
+            default:
+                throw new NoSuchElementException();
+        }
+    }
+
+    /**
+     * Method that handles searching quake data by words in the location
+     * It prompts the user for a filename if the user wishes to save to a file then calls a method to process the request
+     * @param str String: Input string received from the user for the location search
+     */
+    public static void processLRequest(String str)
+    {
+        QuakeQuery query = new QuakeQuery();
+        String message = "";
+        boolean validRequest = true;
+        String fileName = "";                    // filename to use to store data if requested
+
+        try                         // used to catch processing errors
+        {
+            query.setLocationWords( str.substring( 2 ) );               // gets the words after the "L,"
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            validRequest = false;
+        }
+
+        if (!validRequest || !query.validate().isEmpty())
+        {
+            message =   "The attempt to search for records was not in the proper format, the correct format is:\n" +
+                        "L, words\n";
+            System.out.println( message );
+            validRequest = false;
+        }
+
+        if (validRequest)
+        {
+            fileName = filenameRequest();                  // check if user wishes to save to a file
+
+            if (fileName.isEmpty())                        // user did not enter filename - display to console
+            {
+                quakeData.querySearch( query );
+            }
+            else
+            {
+                quakeData.querySearch( query, fileName );
+            }
+        }
+
+    }
+
+    /**
+     * Method that handles listing the quakes nearest to a point
+     * It prompts the user for a filename if the user wishes to save to a file then calls a method to process the request
+     * @param str String: Input string received from the user for the nearest quake search
+     */
+    public static void processNRequest(String str)
+    {
+        double lat = 0.0, lon = 0.0;
+        int count = 0;
+        String message = "";
+        boolean validRequest = true;
+        String fileName = "";                    // filename to use to store data if requested
+
+        StringTokenizer request = new StringTokenizer( str , ",");
+
+        try                         // used to catch processing errors
+        {
+            request.nextToken();    // skips the first token - The N
+            lat = Double.parseDouble( request.nextToken() );
+            lon = Double.parseDouble( request.nextToken() );
+            count = Integer.parseInt( request.nextToken().trim() );
+            if (count < 1)
+            {
+                throw new NumberFormatException( "The count must be at least 1" );
+            }
+        }
+        catch (NumberFormatException | NoSuchElementException e)
+        {
+            message =   "The attempt to search for records was not in the proper format, the correct format is:\n" +
+                    "N, lat, lon, count\n";
+            System.out.println( message );
+            validRequest = false;
+        }
+
+        if (validRequest)
+        {
+            fileName = filenameRequest();                  // check if user wishes to save to a file
+
+            if (fileName.isEmpty())                        // user did not enter filename - display to console
+            {
+                quakeData.nearestSearch( lat, lon, count );
+            }
+            else
+            {
+                quakeData.nearestSearch( lat, lon, count, fileName );
+            }
+        }
+
+    }
+
+    /**
+     * Method that creates a Times object from a time of day of the form HH:MM or HH:MM:SS
+     * @param str String: the time of day
+     * @return Times: the time of day in a Times object
+     */
+    public static Times timeRequest(String str)
+    {
+        StringTokenizer fields = new StringTokenizer( str, ":" );
+        int hour = Integer.parseInt( fields.nextToken() );
+        int minute = Integer.parseInt( fields.nextToken() );
+        double second = fields.hasMoreTokens() ? Double.parseDouble( fields.nextToken() ) : 0.0;
+
+        return new Times( hour, minute, second );
+    }
+
     /**
      * Method that asks the user about saving to a quake data to a file and gets the filename to do so
      * @return String: A filename to save the quake data to.  If the user wishes to display data to the console,
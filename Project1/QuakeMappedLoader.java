@@ -0,0 +1,334 @@
+/************************************************************************************************
+ *  This class handles loading a large quake data file using several threads
+ *
+ *  The file is split into segments that each end on a line break.  Every segment is memory mapped
+ *  and parsed by a QuakeParser on a ForkJoinPool worker into its own QuakeStore, then the segment
+ *  stores are added to the main store in file order, so the records keep the order of the file.
+ *
+ *  The good and bad record counts are the same as parsing the whole file with one QuakeParser
+ *
+ *  A file that is still being written can be loaded up to its last line break, leaving a line that
+ *  is only partly written to be read later by a QuakeFollower
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+public class QuakeMappedLoader
+{
+    public static final long DEFAULT_SEGMENT_SIZE = 32L << 20;     // about 32 MB per segment
+    private static final int SEARCH_BUFFER_SIZE = 4096;             // bytes read when looking for a line break
+
+    private QuakeStore store;
+    private long segmentSize;
+    private ForkJoinPool pool;
+    private int numOfRecords, numOfRecordsMissed;
+    private long numOfBytes;                    // bytes of the file parsed
+
+    /**
+     * Constructor to create a loader that adds records to a store using the default segment size
+     * @param store QuakeStore: the store the loaded records are added to
+     */
+    public QuakeMappedLoader(QuakeStore store)
+    {
+        this( store, DEFAULT_SEGMENT_SIZE, ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * Constructor to create a loader that adds records to a store
+     * @param store QuakeStore: the store the loaded records are added to
+     * @param segmentSize long: the approximate number of bytes parsed by each task
+     * @param pool ForkJoinPool: the pool that runs the parsing tasks
+     */
+    public QuakeMappedLoader(QuakeStore store, long segmentSize, ForkJoinPool pool)
+    {
+        this.store = store;
+        this.segmentSize = segmentSize;
+        this.pool = pool;
+        numOfRecords = 0;
+        numOfRecordsMissed = 0;
+        numOfBytes = 0;
+    }
+
+    /**
+     * Accessor method to get the number of records added to the store
+     * @return int: the number of good records loaded
+     */
+    public int getNumOfRecords()
+    {
+        return numOfRecords;
+    }
+
+    /**
+     * Accessor method to get the number of lines that could not be loaded as records
+     * @return int: the number of bad records
+     */
+    public int getNumOfRecordsMissed()
+    {
+        return numOfRecordsMissed;
+    }
+
+    /**
+     * Accessor method to get the number of bytes of the file that were parsed
+     * A later read of the file can start at this offset to find the records added since
+     * @return long: the number of bytes parsed
+     */
+    public long getNumOfBytes()
+    {
+        return numOfBytes;
+    }
+
+    /**
+     * Method to load every record in a file into the store
+     * @param fileName String: the name of the file containing quake data records
+     * @throws IOException if the file cannot be read
+     */
+    public void loadFile(String fileName) throws IOException
+    {
+        loadFile( fileName, true );
+    }
+
+    /**
+     * Method to load the records in a file into the store
+     * When the file may still be written to, the last line is only loaded if it ends with a line break,
+     * and getNumOfBytes gives the offset after the last line loaded so a follower can read on from there
+     * @param fileName String: the name of the file containing quake data records
+     * @param endOfInput boolean: true if no more bytes will be written, so a last line without a line break is loaded
+     * @throws IOException if the file cannot be read
+     */
+    public void loadFile(String fileName, boolean endOfInput) throws IOException
+    {
+        ArrayList<Long> bounds;
+        ArrayList<ForkJoinTask<QuakeParser>> tasks = new ArrayList<>();
+        SegmentTask lastSegment;
+        QuakeParser parser;
+        int pendingBlankLines = 0;
+
+        try (FileChannel channel = FileChannel.open( Paths.get( fileName ), StandardOpenOption.READ ))
+        {
+            bounds = findSegments( channel );
+            lastSegment = new SegmentTask( channel, bounds.get( bounds.size() - 2 ), bounds.get( bounds.size() - 1 ),
+                    bounds.size() == 2 ? store : new QuakeStore(), endOfInput );
+
+            if (bounds.size() == 2)                 // only one segment, so parse it straight into the store
+            {
+                parser = lastSegment.compute();
+                numOfRecords += parser.getNumOfRecords();
+                numOfRecordsMissed += parser.getNumOfRecordsMissed();
+            }
+            else
+            {
+                for (int k = 0; k + 2 < bounds.size(); k++)
+                {
+                    tasks.add( pool.submit( new SegmentTask( channel, bounds.get( k ), bounds.get( k + 1 ),
+                            new QuakeStore(), true ) ) );
+                }
+                tasks.add( pool.submit( lastSegment ) );
+
+                // merge in file order while later segments may still be parsing
+                for (ForkJoinTask<QuakeParser> task : tasks)
+                {
+                    parser = joinSegment( task );
+
+                    // blank lines at the end of a segment are bad records if any line follows them
+                    if (parser.getNumOfLines() > 0)
+                    {
+                        numOfRecordsMissed += pendingBlankLines;
+                        pendingBlankLines = 0;
+                    }
+                    pendingBlankLines += parser.getNumOfBlankLines();
+                    numOfRecords += parser.getNumOfRecords();
+                    numOfRecordsMissed += parser.getNumOfRecordsMissed();
+
+                    store.addAll( parser.getStore() );
+                }
+            }
+
+            // the other segments end on a line break, so only the last one can stop before its end
+            numOfBytes = lastSegment.getParsedEnd();
+        }
+    }
+
+    /**
+     * Method to find the byte offsets that split a file into segments
+     * Each segment after the first begins right after a line break
+     * @param channel FileChannel: the file to split
+     * @return ArrayList<Long>: the offsets, starting with 0 and ending with the file size
+     * @throws IOException if the file cannot be read
+     */
+    private ArrayList<Long> findSegments(FileChannel channel) throws IOException
+    {
+        ArrayList<Long> bounds = new ArrayList<>();
+        long size = channel.size();
+        long end = 0;
+
+        bounds.add( 0L );
+        while (end < size)
+        {
+            end = Math.min( end + segmentSize, size );
+            if (end < size)
+            {
+                end = findLineEnd( channel, end, size );
+            }
+            bounds.add( end );
+        }
+
+        if (bounds.size() == 1)                     // empty file is one empty segment
+        {
+            bounds.add( 0L );
+        }
+        return bounds;
+    }
+
+    /**
+     * Method to find the offset after the next line break in a file
+     * A line break is \n, \r\n or a lone \r, the same as in QuakeParser
+     * @param channel FileChannel: the file to search
+     * @param position long: the offset to start searching from
+     * @param size long: the size of the file
+     * @return long: the offset after the next line break, or the file size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private long findLineEnd(FileChannel channel, long position, long size) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( SEARCH_BUFFER_SIZE );
+        long lineEnd = -1;
+        boolean carriageReturn = false;
+        int read;
+
+        while (lineEnd < 0 && position < size)
+        {
+            buffer.clear();
+            read = channel.read( buffer, position );
+
+            for (int i = 0; i < read && lineEnd < 0; i++)
+            {
+                if (buffer.get( i ) == '\n' || buffer.get( i ) == '\r')
+                {
+                    lineEnd = position + i + 1;
+                    carriageReturn = buffer.get( i ) == '\r';
+                }
+            }
+            position += Math.max( read, 0 );
+        }
+
+        if (carriageReturn && lineEnd < size)
+        {
+            // keep the \n of a \r\n line break in the same segment, so the next segment does not start with a blank line
+            buffer.clear().limit( 1 );
+            if (channel.read( buffer, lineEnd ) == 1 && buffer.get( 0 ) == '\n')
+            {
+                lineEnd++;
+            }
+        }
+
+        return lineEnd < 0 ? size : lineEnd;
+    }
+
+    /**
+     * Method to wait for a segment task and get its parser
+     * @param task ForkJoinTask<QuakeParser>: the task parsing a segment
+     * @return QuakeParser: the parser that holds the segment's records and counts
+     * @throws IOException if the segment could not be read
+     */
+    private QuakeParser joinSegment(ForkJoinTask<QuakeParser> task) throws IOException
+    {
+        QuakeParser parser;
+        Throwable cause;
+
+        try
+        {
+            parser = task.join();
+        }
+        catch (RuntimeException e)
+        {
+            // find the IOException the task was wrapped around
+            cause = e;
+            while (cause != null && !(cause instanceof IOException))
+            {
+                cause = cause.getCause();
+            }
+            if (cause == null)
+            {
+                throw e;
+            }
+            throw (IOException) cause;
+        }
+        return parser;
+    }
+
+    /**
+     * Class for the task that maps and parses one segment of the file
+     */
+    private static class SegmentTask extends RecursiveTask<QuakeParser>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private FileChannel channel;
+        private long start, end;
+        private QuakeStore segmentStore;
+        private boolean endOfInput;             // true if a last line without a line break is parsed
+        private long parsedEnd;                 // offset after the last line parsed
+
+        /**
+         * Constructor to create a task for one segment
+         * @param channel FileChannel: the file being loaded
+         * @param start long: the offset of the first byte of the segment
+         * @param end long: the offset after the last byte of the segment
+         * @param segmentStore QuakeStore: the store the segment's records are added to
+         * @param endOfInput boolean: true if a last line without a line break is parsed
+         */
+        public SegmentTask(FileChannel channel, long start, long end, QuakeStore segmentStore, boolean endOfInput)
+        {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.segmentStore = segmentStore;
+            this.endOfInput = endOfInput;
+            parsedEnd = start;
+        }
+
+        /**
+         * Accessor method to get the offset after the last line parsed, once the task is done
+         * @return long: the offset in the file
+         */
+        public long getParsedEnd()
+        {
+            return parsedEnd;
+        }
+
+        /**
+         * Method to parse the segment
+         * @return QuakeParser: the parser holding the counts for the segment
+         */
+        @Override
+        protected QuakeParser compute()
+        {
+            QuakeParser parser = new QuakeParser( segmentStore );
+            MappedByteBuffer buffer;
+
+            try
+            {
+                buffer = channel.map( FileChannel.MapMode.READ_ONLY, start, end - start );
+                parser.parseLines( buffer, endOfInput );
+                parsedEnd = start + buffer.position();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException( e );
+            }
+            return parser;
+        }
+    }
+}
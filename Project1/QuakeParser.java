@@ -0,0 +1,616 @@
+/************************************************************************************************
+ *  This class handles the parsing of quake data files into a QuakeStore
+ *
+ *  It reads the file in blocks through a FileChannel and decodes each line of the form
+ *  yyyy-mm-ddThh:mm:ss.sssZ|latitude|longitude|magnitude|location
+ *  straight from the bytes into the packed columns of the store, so no Strings are created for a
+ *  record except the first time a location name is seen
+ *
+ *  Lines are decoded the same way the QuakeRecord String constructor decodes them:
+ *  a bad date or time is given the default value, a bad number or missing field makes the record bad
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class QuakeParser
+{
+    private static final int BUFFER_SIZE = 1 << 20;     // bytes read from the file at a time
+    private static final int INITIAL_TABLE_SIZE = 256;  // starting size of location table, must be a power of 2
+
+    // powers of ten that are exact as doubles, used for the fast decimal conversion
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private QuakeStore store;
+    private int numOfRecords, numOfRecordsMissed;
+    private int numOfBlankLines;            // blank lines only count as bad if a record comes after them
+    private int numOfLines;                 // lines parsed that were not blank
+
+    private byte[] line = new byte[256];    // holds the line being parsed
+    private int[] tokenStart = new int[5];  // start and end of the five fields of a line
+    private int[] tokenEnd = new int[5];
+
+    // fields decoded from the current line
+    private int date, time, locId;
+    private double lat, lon, ric;
+    private boolean badNumber;
+
+    // hash table mapping location bytes to location ids so known names are found without a String
+    private byte[][] tableNames = new byte[INITIAL_TABLE_SIZE][];
+    private int[] tableIds = new int[INITIAL_TABLE_SIZE];
+    private int tableCount = 0;
+    private Charset charset = Charset.defaultCharset();
+
+    /**
+     * Constructor to create a parser that adds records to a store
+     * @param store QuakeStore: the store the parsed records are added to
+     */
+    public QuakeParser(QuakeStore store)
+    {
+        this.store = store;
+        numOfRecords = 0;
+        numOfRecordsMissed = 0;
+        numOfBlankLines = 0;
+        numOfLines = 0;
+    }
+
+    /**
+     * Accessor method to get the store the parsed records are added to
+     * @return QuakeStore: the store of parsed records
+     */
+    public QuakeStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Accessor method to get the number of records added to the store
+     * @return int: the number of good records parsed
+     */
+    public int getNumOfRecords()
+    {
+        return numOfRecords;
+    }
+
+    /**
+     * Accessor method to get the number of lines that could not be parsed into records
+     * @return int: the number of bad records
+     */
+    public int getNumOfRecordsMissed()
+    {
+        return numOfRecordsMissed;
+    }
+
+    /**
+     * Accessor method to get the number of blank lines after the last line that was not blank
+     * These are not counted as bad records unless more records follow, such as in the next part of a file
+     * @return int: the number of blank lines at the end of the parsed data
+     */
+    public int getNumOfBlankLines()
+    {
+        return numOfBlankLines;
+    }
+
+    /**
+     * Accessor method to get the number of lines parsed that were not blank
+     * @return int: the number of good and bad records parsed
+     */
+    public int getNumOfLines()
+    {
+        return numOfLines;
+    }
+
+    /**
+     * Method to parse every record in a file into the store
+     * @param fileName String: the name of the file containing quake data records
+     * @throws IOException if the file cannot be read
+     */
+    public void parseFile(String fileName) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+
+        try (FileChannel channel = FileChannel.open( Paths.get( fileName ), StandardOpenOption.READ ))
+        {
+            while (channel.read( buffer ) >= 0)
+            {
+                buffer.flip();
+                parseLines( buffer, false );
+
+                if (buffer.position() == 0 && buffer.limit() == buffer.capacity())
+                {
+                    // a single line fills the buffer, so make room for the rest of it
+                    buffer = ByteBuffer.allocate( buffer.capacity() * 2 ).put( buffer );
+                }
+                else
+                {
+                    buffer.compact();           // keep the partial line for the next read
+                }
+            }
+            buffer.flip();
+            parseLines( buffer, true );
+        }
+    }
+
+    /**
+     * Method to parse the complete lines in a buffer from its position to its limit
+     * Lines end with \n, \r\n or a lone \r, like the line breaks of a Scanner.  A \r at the end of the
+     * buffer is not parsed until the next byte is seen, unless it is the end of the input
+     * When the method returns, the position is at the start of the first line not parsed
+     * @param buffer ByteBuffer: the bytes to parse
+     * @param endOfInput boolean: true if no more bytes follow, so a last line without a newline is parsed
+     */
+    public void parseLines(ByteBuffer buffer, boolean endOfInput)
+    {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        ByteBuffer view = buffer.duplicate();       // used to copy lines out of buffers without an array
+        byte b;
+
+        for (int i = start; i < limit; i++)
+        {
+            b = buffer.get( i );
+            if (b == '\n' || (b == '\r' && (i + 1 < limit || endOfInput)))
+            {
+                parseLine( view, start, i );
+                if (b == '\r' && i + 1 < limit && buffer.get( i + 1 ) == '\n')
+                {
+                    i++;                                // \r\n is one line break
+                }
+                start = i + 1;
+            }
+        }
+
+        if (endOfInput && start < limit)
+        {
+            parseLine( view, start, limit );
+            start = limit;
+        }
+
+        buffer.position( start );
+    }
+
+    /**
+     * Method to parse one line of a buffer and add it to the store
+     * @param buffer ByteBuffer: the buffer holding the line, its position is changed
+     * @param start int: the index of the first byte of the line
+     * @param end int: the index after the last byte of the line, not including the newline
+     */
+    private void parseLine(ByteBuffer buffer, int start, int end)
+    {
+        int length = end - start;
+
+        if (length > line.length)
+        {
+            line = new byte[Math.max( length, line.length * 2 )];
+        }
+        if (buffer.hasArray())
+        {
+            System.arraycopy( buffer.array(), buffer.arrayOffset() + start, line, 0, length );
+        }
+        else
+        {
+            buffer.position( start );
+            buffer.get( line, 0, length );
+        }
+
+        if (isBlank( length ))
+        {
+            numOfBlankLines++;
+        }
+        else
+        {
+            // blank lines before this line are bad records, only blank lines at the end of a file are ignored
+            numOfRecordsMissed += numOfBlankLines;
+            numOfBlankLines = 0;
+            numOfLines++;
+
+            if (decodeLine( length ))
+            {
+                store.add( date, time, lat, lon, ric, locId );
+                numOfRecords++;
+            }
+            else
+            {
+                numOfRecordsMissed++;
+            }
+        }
+    }
+
+    /**
+     * Method to check if the current line has only whitespace
+     * @param length int: the length of the line
+     * @return boolean: true if the line is blank
+     */
+    private boolean isBlank(int length)
+    {
+        boolean blank = true;
+
+        for (int i = 0; i < length && blank; i++)
+        {
+            if ((line[i] & 0xFF) > ' ')         // bytes of 0x80 and over are not whitespace
+            {
+                blank = false;
+            }
+        }
+        return blank;
+    }
+
+    /**
+     * Method to decode the fields of the current line
+     * @param length int: the length of the line
+     * @return boolean: true if the line is a good record, false if not
+     */
+    private boolean decodeLine(int length)
+    {
+        boolean good = true;
+        int pos = 0;
+        int dateTimeStart;
+
+        // find the five fields, skipping empty fields the same way StringTokenizer does
+        for (int t = 0; t < 5 && good; t++)
+        {
+            while (pos < length && line[pos] == '|')
+            {
+                pos++;
+            }
+            if (pos == length)
+            {
+                good = false;
+            }
+            else
+            {
+                tokenStart[t] = pos;
+                while (pos < length && line[pos] != '|')
+                {
+                    pos++;
+                }
+                tokenEnd[t] = pos;
+            }
+        }
+
+        if (good && tokenEnd[0] - tokenStart[0] < 23)     // date and time field too short
+        {
+            good = false;
+        }
+
+        if (good)
+        {
+            dateTimeStart = tokenStart[0];
+            date = decodeDate( dateTimeStart, dateTimeStart + 10 );
+            time = decodeTime( dateTimeStart + 11, dateTimeStart + 23 );
+
+            badNumber = false;
+            lat = decodeDouble( tokenStart[1], tokenEnd[1] );
+            lon = decodeDouble( tokenStart[2], tokenEnd[2] );
+            ric = decodeDouble( tokenStart[3], tokenEnd[3] );
+            good = !badNumber;
+        }
+
+        if (good)
+        {
+            locId = findLocation( tokenStart[4], tokenEnd[4] );
+        }
+
+        return good;
+    }
+
+    /**
+     * Method to decode a date of the form yyyy-mm-dd, giving the default date of January 1, 1900 if not valid
+     * @param start int: the index of the first byte of the date
+     * @param end int: the index after the last byte of the date
+     * @return int: the date packed in the form yyyymmdd
+     */
+    private int decodeDate(int start, int end)
+    {
+        int year, month, day;
+        int packed = QuakeStore.packDate( 1900, 1, 1 );
+
+        while (start < end && (line[start] & 0xFF) <= ' ')    // trim whitespace like Dates(String)
+        {
+            start++;
+        }
+        while (end > start && (line[end - 1] & 0xFF) <= ' ')
+        {
+            end--;
+        }
+
+        year = decodeInt( start, end, '-' );
+        start = nextField( start, end, '-' );
+        month = decodeInt( start, end, '-' );
+        start = nextField( start, end, '-' );
+        day = decodeInt( start, end, '-' );
+
+        if (year >= 0 && month >= 0 && day >= 0)
+        {
+            packed = QuakeStore.packDate( year, month, day );
+        }
+        return packed;
+    }
+
+    /**
+     * Method to decode a time of the form hh:mm:ss.sss, giving the default time of 00:00:00.0 if not valid
+     * @param start int: the index of the first byte of the time
+     * @param end int: the index after the last byte of the time
+     * @return int: the time packed in the form hhmmssSSS
+     */
+    private int decodeTime(int start, int end)
+    {
+        int hour, minute, secondEnd;
+        double second;
+        int packed = QuakeStore.packTime( 0, 0, 0.0 );
+        boolean saveBadNumber = badNumber;
+
+        hour = decodeInt( start, end, ':' );
+        start = nextField( start, end, ':' );
+        minute = decodeInt( start, end, ':' );
+        start = nextField( start, end, ':' );
+        while (start < end && line[start] == ':')
+        {
+            start++;
+        }
+        secondEnd = start;
+        while (secondEnd < end && line[secondEnd] != ':')
+        {
+            secondEnd++;
+        }
+
+        badNumber = false;
+        second = start < end ? decodeDouble( start, secondEnd ) : 0.0;
+
+        if (hour >= 0 && minute >= 0 && start < end && !badNumber)
+        {
+            packed = QuakeStore.packTime( hour, minute, second );
+        }
+        badNumber = saveBadNumber;
+
+        return packed;
+    }
+
+    /**
+     * Method to find the start of the next field after skipping the current field and its separators
+     * @param start int: the index of the current field, which may begin with separators
+     * @param end int: the index after the last byte that can be read
+     * @param separator char: the character between fields
+     * @return int: the index after the current field
+     */
+    private int nextField(int start, int end, char separator)
+    {
+        while (start < end && line[start] == separator)
+        {
+            start++;
+        }
+        while (start < end && line[start] != separator)
+        {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Method to decode a non-negative int field, skipping separators in front of it
+     * @param start int: the index where the field may begin
+     * @param end int: the index after the last byte that can be read
+     * @param separator char: the character between fields
+     * @return int: the value of the field or -1 if it is missing or not a valid number
+     */
+    private int decodeInt(int start, int end, char separator)
+    {
+        int value = 0;
+        int digits = 0;
+        boolean valid = true;
+
+        while (start < end && line[start] == separator)
+        {
+            start++;
+        }
+        if (start < end && line[start] == '+')
+        {
+            start++;
+        }
+        while (start < end && line[start] != separator && valid)
+        {
+            if (line[start] >= '0' && line[start] <= '9' && digits < 9)
+            {
+                value = value * 10 + line[start] - '0';
+                digits++;
+            }
+            else
+            {
+                valid = false;
+            }
+            start++;
+        }
+
+        if (!valid || digits == 0)
+        {
+            value = -1;
+        }
+        return value;
+    }
+
+    /**
+     * Method to decode a decimal number the same way Double.parseDouble does
+     * Numbers of up to 15 significant digits are converted with a single division, which is exact,
+     * anything else is passed to Double.parseDouble
+     * badNumber is set to true if the field is not a number
+     * @param start int: the index of the first byte of the number
+     * @param end int: the index after the last byte of the number
+     * @return double: the value of the number
+     */
+    private double decodeDouble(int start, int end)
+    {
+        double value = 0.0;
+        long mantissa = 0;
+        int numerals = 0, digits = 0, fractionDigits = 0;
+        int pos;
+        boolean negative = false, seenPoint = false, simple = true;
+
+        while (start < end && (line[start] & 0xFF) <= ' ')    // trim whitespace like Double.parseDouble
+        {
+            start++;
+        }
+        while (end > start && (line[end - 1] & 0xFF) <= ' ')
+        {
+            end--;
+        }
+
+        pos = start;
+        if (pos < end && (line[pos] == '-' || line[pos] == '+'))
+        {
+            negative = line[pos] == '-';
+            pos++;
+        }
+        for (; pos < end && simple; pos++)
+        {
+            if (line[pos] >= '0' && line[pos] <= '9')
+            {
+                numerals++;
+                if (mantissa != 0 || line[pos] != '0')      // leading zeros are not significant
+                {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + line[pos] - '0';
+                if (seenPoint)
+                {
+                    fractionDigits++;
+                }
+            }
+            else if (line[pos] == '.' && !seenPoint)
+            {
+                seenPoint = true;
+            }
+            else
+            {
+                simple = false;
+            }
+        }
+
+        if (simple && numerals > 0 && digits <= 15 && fractionDigits < POWERS_OF_TEN.length)
+        {
+            value = mantissa / POWERS_OF_TEN[fractionDigits];
+            if (negative)
+            {
+                value = -value;
+            }
+        }
+        else
+        {
+            try
+            {
+                value = Double.parseDouble( new String( line, start, end - start, charset ) );
+            }
+            catch (NumberFormatException e)
+            {
+                badNumber = true;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Method to find the id of a location name in the current line
+     * The name is looked up by its bytes, and a String is only created the first time a name is seen
+     * @param start int: the index of the first byte of the location name
+     * @param end int: the index after the last byte of the location name
+     * @return int: the id of the location name in the store
+     */
+    private int findLocation(int start, int end)
+    {
+        int length = end - start;
+        int hash = 0;
+        int slot, id;
+        byte[] name;
+
+        for (int i = start; i < end; i++)
+        {
+            hash = 31 * hash + line[i];
+        }
+        hash ^= hash >>> 16;
+
+        slot = hash & (tableNames.length - 1);
+        while (tableNames[slot] != null && !sameBytes( tableNames[slot], start, length ))
+        {
+            slot = (slot + 1) & (tableNames.length - 1);
+        }
+
+        if (tableNames[slot] == null)               // a new name, so add it to the store and the table
+        {
+            name = new byte[length];
+            System.arraycopy( line, start, name, 0, length );
+            id = store.internLocation( new String( name, charset ) );
+            tableNames[slot] = name;
+            tableIds[slot] = id;
+            tableCount++;
+
+            if (tableCount * 2 > tableNames.length)
+            {
+                growTable();
+            }
+        }
+        else
+        {
+            id = tableIds[slot];
+        }
+
+        return id;
+    }
+
+    /**
+     * Method to check if a saved location name has the same bytes as part of the current line
+     * @param name byte[]: the saved location name
+     * @param start int: the index of the first byte in the line
+     * @param length int: the number of bytes in the line to compare
+     * @return boolean: true if the bytes are the same
+     */
+    private boolean sameBytes(byte[] name, int start, int length)
+    {
+        boolean same = name.length == length;
+
+        for (int i = 0; i < length && same; i++)
+        {
+            same = name[i] == line[start + i];
+        }
+        return same;
+    }
+
+    /**
+     * Method to double the size of the location hash table
+     */
+    private void growTable()
+    {
+        byte[][] oldNames = tableNames;
+        int[] oldIds = tableIds;
+        int hash, slot;
+
+        tableNames = new byte[oldNames.length * 2][];
+        tableIds = new int[oldIds.length * 2];
+
+        for (int i = 0; i < oldNames.length; i++)
+        {
+            if (oldNames[i] != null)
+            {
+                hash = 0;
+                for (byte b : oldNames[i])
+                {
+                    hash = 31 * hash + b;
+                }
+                hash ^= hash >>> 16;
+
+                slot = hash & (tableNames.length - 1);
+                while (tableNames[slot] != null)
+                {
+                    slot = (slot + 1) & (tableNames.length - 1);
+                }
+                tableNames[slot] = oldNames[i];
+                tableIds[slot] = oldIds[i];
+            }
+        }
+    }
+}
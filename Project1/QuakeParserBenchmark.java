@@ -0,0 +1,163 @@
+/************************************************************************************************
+ *  This class measures how fast quake data files are loaded
+ *
+ *  It loads the same file with the original Scanner and QuakeRecord(String) method, with the
+ *  QuakeParser, with the QuakeMappedLoader and from a QuakeSnapshot, and prints the throughput of each
+ *  in megabytes of the text file per second
+ *
+ *  Usage: java QuakeParserBenchmark [filename] [number of runs]
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.io.File;
+import java.io.IOException;
+import java.util.Scanner;
+
+public class QuakeParserBenchmark
+{
+    private final static String DEFAULT_FILENAME = "quakes.txt";
+    private final static int DEFAULT_RUNS = 5;
+
+    /**
+     * Method is the main method of the benchmark
+     * Each method is run once to warm up, then timed for the number of runs requested
+     * @param args String[]: the file to load and the number of timed runs, both optional
+     */
+    public static void main( String args[] ) throws IOException
+    {
+        String fileName = args.length > 0 ? args[0] : DEFAULT_FILENAME;
+        int runs = args.length > 1 ? Integer.parseInt( args[1] ) : DEFAULT_RUNS;
+        long fileSize = new File( fileName ).length();
+        long start, scannerTime = 0, parserTime = 0, mappedTime = 0, snapshotTime = 0;
+        int scannerCount = 0, parserCount = 0, mappedCount = 0, snapshotCount = 0;
+
+        scannerLoad( fileName );            // warm up
+        parserLoad( fileName );
+        saveSnapshot( fileName );
+        snapshotLoad( fileName );
+
+        for (int i = 0; i < runs; i++)
+        {
+            start = System.nanoTime();
+            scannerCount = scannerLoad( fileName );
+            scannerTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            parserCount = parserLoad( fileName );
+            parserTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            mappedCount = mappedLoad( fileName );
+            mappedTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            snapshotCount = snapshotLoad( fileName );
+            snapshotTime += System.nanoTime() - start;
+        }
+
+        System.out.println( fileName + ": " + fileSize + " bytes, " + runs + " runs" );
+        System.out.println( report( "Scanner and QuakeRecord", scannerCount, fileSize * runs, scannerTime ) );
+        System.out.println( report( "QuakeParser", parserCount, fileSize * runs, parserTime ) );
+        System.out.println( report( "QuakeMappedLoader", mappedCount, fileSize * runs, mappedTime ) );
+        System.out.println( report( "QuakeSnapshot", snapshotCount, fileSize * runs, snapshotTime ) );
+    }
+
+    /**
+     * Method to load a file the way QuakeData originally did
+     * @param fileName String: the file to load
+     * @return int: the number of good records
+     */
+    public static int scannerLoad( String fileName ) throws IOException
+    {
+        QuakeStore store = new QuakeStore();
+        Scanner inputFile = new Scanner( new File( fileName ) );
+
+        while (inputFile.hasNext())
+        {
+            try
+            {
+                store.add( new QuakeRecord( inputFile.nextLine() ) );
+            }
+            catch (IOException e)
+            {
+                // bad records are skipped
+            }
+        }
+        inputFile.close();
+
+        return store.size();
+    }
+
+    /**
+     * Method to load a file with the QuakeParser
+     * @param fileName String: the file to load
+     * @return int: the number of good records
+     */
+    public static int parserLoad( String fileName ) throws IOException
+    {
+        QuakeStore store = new QuakeStore();
+        QuakeParser parser = new QuakeParser( store );
+
+        parser.parseFile( fileName );
+
+        return store.size();
+    }
+
+    /**
+     * Method to load a file with the QuakeMappedLoader
+     * @param fileName String: the file to load
+     * @return int: the number of good records
+     */
+    public static int mappedLoad( String fileName ) throws IOException
+    {
+        QuakeStore store = new QuakeStore();
+        QuakeMappedLoader loader = new QuakeMappedLoader( store );
+
+        loader.loadFile( fileName );
+
+        return store.size();
+    }
+
+    /**
+     * Method to load a file with the QuakeMappedLoader and save its snapshot
+     * @param fileName String: the file to load
+     */
+    public static void saveSnapshot( String fileName ) throws IOException
+    {
+        QuakeStore store = new QuakeStore();
+        QuakeMappedLoader loader = new QuakeMappedLoader( store );
+
+        loader.loadFile( fileName );
+        new QuakeSnapshot( store ).save( fileName, loader.getNumOfBytes(), loader.getNumOfRecordsMissed() );
+    }
+
+    /**
+     * Method to load the snapshot of a file
+     * @param fileName String: the file the snapshot was made from
+     * @return int: the number of records loaded
+     */
+    public static int snapshotLoad( String fileName ) throws IOException
+    {
+        QuakeStore store = new QuakeStore();
+
+        new QuakeSnapshot( store ).load( fileName );
+
+        return store.size();
+    }
+
+    /**
+     * Method to create a line describing the result of one load method
+     * @param name String: the name of the load method
+     * @param records int: the number of records loaded
+     * @param bytes long: the total bytes read over all runs
+     * @param nanos long: the total time of all runs in nanoseconds
+     * @return String: the description of the result
+     */
+    public static String report( String name, int records, long bytes, long nanos )
+    {
+        double seconds = nanos / 1e9;
+
+        return String.format( "%-25s %,d records  %8.1f MB/s", name, records, bytes / 1e6 / seconds );
+    }
+}
@@ -0,0 +1,490 @@
+/************************************************************************************************
+ *  This class handles a search of the quake records using several conditions at once
+ *
+ *  A query may limit the region, the distance from a point, the date range, the time of day, the magnitude range, text
+ *  in the location and whole words in the location.  Conditions that are not set match every record.
+ *  QuakeData.find uses the index for the condition expected to match the fewest records and checks
+ *  the other conditions on those records only
+ *
+ *  A query is never changed by a search.  prepare gives each search its own copy holding the location
+ *  names that match, so one query can be searched with by several threads at the same time.
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public class QuakeQuery
+{
+    private boolean hasRegion, hasCircle, hasDates, hasTimes, hasMagnitudes;
+    private boolean datesValid, timesValid;
+    private double minLat, maxLat, minLon, maxLon;
+    private double centerLat, centerLon, radiusKm;
+    private int minDate, maxDate;               // packed dates of the form yyyymmdd
+    private int minTime, maxTime;               // packed times of the form hhmmssSSS
+    private double minMag, maxMag;
+    private String locationText;                // upper case text to find in the location, or null
+    private String locationWords;               // words that must all be in the location, or null
+
+    // set only in the copies made by prepare
+    private IntList locationIds;                // ids of the location names that match the location conditions
+    private boolean[] locationMatches;          // element i is true if location id i matches the location conditions
+
+    /**
+     * No-argument constructor creates a query with no conditions, which matches every record
+     */
+    public QuakeQuery()
+    {
+        hasRegion = false;
+        hasCircle = false;
+        hasDates = false;
+        hasTimes = false;
+        hasMagnitudes = false;
+        locationText = null;
+        locationWords = null;
+    }
+
+    /**
+     * Copy constructor used by prepare
+     * @param query QuakeQuery: the query to copy the conditions of
+     */
+    private QuakeQuery(QuakeQuery query)
+    {
+        hasRegion = query.hasRegion;
+        hasCircle = query.hasCircle;
+        hasDates = query.hasDates;
+        hasTimes = query.hasTimes;
+        hasMagnitudes = query.hasMagnitudes;
+        datesValid = query.datesValid;
+        timesValid = query.timesValid;
+        minLat = query.minLat;
+        maxLat = query.maxLat;
+        minLon = query.minLon;
+        maxLon = query.maxLon;
+        centerLat = query.centerLat;
+        centerLon = query.centerLon;
+        radiusKm = query.radiusKm;
+        minDate = query.minDate;
+        maxDate = query.maxDate;
+        minTime = query.minTime;
+        maxTime = query.maxTime;
+        minMag = query.minMag;
+        maxMag = query.maxMag;
+        locationText = query.locationText;
+        locationWords = query.locationWords;
+    }
+
+    /**
+     * Mutator method to limit the query to a region
+     * If minLon is more than maxLon the region crosses longitude 180, such as 170 to -170
+     * @param minLat double: the minimum latitude of the region
+     * @param maxLat double: the maximum latitude of the region
+     * @param minLon double: the minimum longitude of the region
+     * @param maxLon double: the maximum longitude of the region
+     */
+    public void setRegion(double minLat, double maxLat, double minLon, double maxLon)
+    {
+        hasRegion = true;
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLon = minLon;
+        this.maxLon = maxLon;
+    }
+
+    /**
+     * Mutator method to limit the query to the quakes within a distance of a point
+     * The distance is measured along the surface of the earth, so it is right near the poles and longitude 180
+     * @param lat double: the latitude of the point
+     * @param lon double: the longitude of the point
+     * @param radiusKm double: the distance in kilometres
+     */
+    public void setCircle(double lat, double lon, double radiusKm)
+    {
+        hasCircle = true;
+        centerLat = lat;
+        centerLon = lon;
+        this.radiusKm = radiusKm;
+    }
+
+    /**
+     * Mutator method to limit the query to a range of dates
+     * @param minDate Dates: the earliest date
+     * @param maxDate Dates: the latest date
+     */
+    public void setDates(Dates minDate, Dates maxDate)
+    {
+        hasDates = true;
+        datesValid = minDate.isValid() && maxDate.isValid();
+        this.minDate = QuakeStore.packDate( minDate.getYear(), minDate.getMonth(), minDate.getDay() );
+        this.maxDate = QuakeStore.packDate( maxDate.getYear(), maxDate.getMonth(), maxDate.getDay() );
+    }
+
+    /**
+     * Mutator method to limit the query to a time of day
+     * If minTime is after maxTime the range goes past midnight, such as 22:00 to 02:00
+     * @param minTime Times: the earliest time of day
+     * @param maxTime Times: the latest time of day
+     */
+    public void setTimes(Times minTime, Times maxTime)
+    {
+        hasTimes = true;
+        timesValid = minTime.isValid() && maxTime.isValid();
+        this.minTime = QuakeStore.packTime( minTime.getHour(), minTime.getMinute(), minTime.getSecond() );
+        this.maxTime = QuakeStore.packTime( maxTime.getHour(), maxTime.getMinute(), maxTime.getSecond() );
+    }
+
+    /**
+     * Mutator method to limit the query to a range of magnitudes
+     * @param minMag double: the minimum magnitude
+     * @param maxMag double: the maximum magnitude
+     */
+    public void setMagnitudes(double minMag, double maxMag)
+    {
+        hasMagnitudes = true;
+        this.minMag = minMag;
+        this.maxMag = maxMag;
+    }
+
+    /**
+     * Mutator method to limit the query to locations containing some text
+     * The text is matched without regard to case
+     * @param text String: the text the location must contain
+     */
+    public void setLocationText(String text)
+    {
+        locationText = text.trim().toUpperCase();
+    }
+
+    /**
+     * Mutator method to limit the query to locations holding every one of some words
+     * Words are runs of letters and digits, and are matched whole, in any order and without regard to case,
+     * so "california southern" matches "Southern California" but "calif" does not
+     * @param words String: the words the location must hold
+     */
+    public void setLocationWords(String words)
+    {
+        locationWords = words.trim();
+    }
+
+    /**
+     * Accessor method to check if the query has a region condition
+     * @return boolean: true if the query is limited to a region
+     */
+    public boolean hasRegion()
+    {
+        return hasRegion;
+    }
+
+    /**
+     * Accessor method to check if the query has a distance condition
+     * @return boolean: true if the query is limited to the quakes within a distance of a point
+     */
+    public boolean hasCircle()
+    {
+        return hasCircle;
+    }
+
+    /**
+     * Accessor method to check if the query has a date condition
+     * @return boolean: true if the query is limited to a range of dates
+     */
+    public boolean hasDates()
+    {
+        return hasDates;
+    }
+
+    /**
+     * Accessor method to check if the query has a time of day condition
+     * @return boolean: true if the query is limited to a time of day
+     */
+    public boolean hasTimes()
+    {
+        return hasTimes;
+    }
+
+    /**
+     * Accessor method to check if the query has a magnitude condition
+     * @return boolean: true if the query is limited to a range of magnitudes
+     */
+    public boolean hasMagnitudes()
+    {
+        return hasMagnitudes;
+    }
+
+    /**
+     * Accessor method to check if the query has a location condition
+     * @return boolean: true if the query is limited to locations containing some text
+     */
+    public boolean hasLocationText()
+    {
+        return locationText != null;
+    }
+
+    /**
+     * Accessor method to check if the query has a location words condition
+     * @return boolean: true if the query is limited to locations holding some words
+     */
+    public boolean hasLocationWords()
+    {
+        return locationWords != null;
+    }
+
+    /**
+     * Accessor method to check if the query has any location condition
+     * @return boolean: true if the query is limited by location text or location words
+     */
+    public boolean hasLocation()
+    {
+        return locationText != null || locationWords != null;
+    }
+
+    /**
+     * Accessor method to get the ids of the location names that match the location conditions
+     * Only a query returned by prepare holds the ids
+     * @return IntList: the location ids, in increasing order
+     */
+    public IntList getLocationIds()
+    {
+        return locationIds;
+    }
+
+    /**
+     * Accessor method to get the minimum latitude of the region
+     * @return double: the minimum latitude of the region
+     */
+    public double getMinLat()
+    {
+        return minLat;
+    }
+
+    /**
+     * Accessor method to get the maximum latitude of the region
+     * @return double: the maximum latitude of the region
+     */
+    public double getMaxLat()
+    {
+        return maxLat;
+    }
+
+    /**
+     * Accessor method to get the minimum longitude of the region
+     * @return double: the minimum longitude of the region
+     */
+    public double getMinLon()
+    {
+        return minLon;
+    }
+
+    /**
+     * Accessor method to get the maximum longitude of the region
+     * @return double: the maximum longitude of the region
+     */
+    public double getMaxLon()
+    {
+        return maxLon;
+    }
+
+    /**
+     * Accessor method to get the latitude of the point of the distance condition
+     * @return double: the latitude of the point
+     */
+    public double getCenterLat()
+    {
+        return centerLat;
+    }
+
+    /**
+     * Accessor method to get the longitude of the point of the distance condition
+     * @return double: the longitude of the point
+     */
+    public double getCenterLon()
+    {
+        return centerLon;
+    }
+
+    /**
+     * Accessor method to get the distance of the distance condition
+     * @return double: the distance in kilometres
+     */
+    public double getRadiusKm()
+    {
+        return radiusKm;
+    }
+
+    /**
+     * Accessor method to get the earliest date of the query
+     * @return int: the earliest date in the form yyyymmdd
+     */
+    public int getMinDate()
+    {
+        return minDate;
+    }
+
+    /**
+     * Accessor method to get the latest date of the query
+     * @return int: the latest date in the form yyyymmdd
+     */
+    public int getMaxDate()
+    {
+        return maxDate;
+    }
+
+    /**
+     * Accessor method to get the minimum magnitude of the query
+     * @return double: the minimum magnitude
+     */
+    public double getMinMag()
+    {
+        return minMag;
+    }
+
+    /**
+     * Accessor method to get the maximum magnitude of the query
+     * @return double: the maximum magnitude
+     */
+    public double getMaxMag()
+    {
+        return maxMag;
+    }
+
+    /**
+     * Method to check if the conditions of the query are valid
+     * Latitudes and longitudes must be on the globe, dates and times must be valid,
+     * and each minimum must not be more than its maximum, except for longitudes crossing longitude 180
+     * @return String: a message describing the first problem found, or an empty String if the query is valid
+     */
+    public String validate()
+    {
+        String message = "";
+
+        if (hasRegion && (minLat > maxLat || minLat < -90 || maxLat > 90 ||
+                minLon < -180 || maxLon > 180))
+        {
+            message = "Latitude or longitude values not valid.";
+        }
+        else if (hasCircle && (centerLat < -90 || centerLat > 90 || centerLon < -180 || centerLon > 180 ||
+                radiusKm < 0))
+        {
+            message = "Point or distance values not valid.";
+        }
+        else if (hasDates && (!datesValid || minDate > maxDate))
+        {
+            message = "Input dates not valid.";
+        }
+        else if (hasTimes && !timesValid)
+        {
+            message = "Input times not valid.";
+        }
+        else if (hasMagnitudes && minMag > maxMag)
+        {
+            message = "Minimum magnitude must not be more than the maximum magnitude.";
+        }
+        else if (locationWords != null && LocationDictionary.words( locationWords ).isEmpty())
+        {
+            message = "Location words not valid.";
+        }
+
+        return message;
+    }
+
+    /**
+     * Method to get ready to check records of a store
+     * It finds which location names match the location conditions with the indexes of the location dictionary,
+     * so each record only needs a table lookup.  The table is kept in a copy of the query, not in this query,
+     * so searches running at the same time with the same query each use their own
+     * @param store QuakeStore: the store that will be searched
+     * @return QuakeQuery: a copy of the query ready to check the records of the store
+     */
+    public QuakeQuery prepare(QuakeStore store)
+    {
+        LocationDictionary locations = store.getLocations();
+        QuakeQuery prepared = new QuakeQuery( this );
+        IntList ids, wordMatches, both;
+
+        if (hasLocation())
+        {
+            ids = locationText != null ? locations.search( locationText ) : null;
+            if (locationWords != null)
+            {
+                wordMatches = locations.searchWords( locationWords );
+                if (ids == null)
+                {
+                    ids = wordMatches;
+                }
+                else                                // keep the names that match both conditions
+                {
+                    both = new IntList();
+                    for (int k = 0; k < ids.size(); k++)
+                    {
+                        if (wordMatches.sortedContains( ids.get( k ) ))
+                        {
+                            both.add( ids.get( k ) );
+                        }
+                    }
+                    ids = both;
+                }
+            }
+
+            prepared.locationIds = ids;
+            prepared.locationMatches = new boolean[locations.size()];
+            for (int k = 0; k < ids.size(); k++)
+            {
+                prepared.locationMatches[ids.get( k )] = true;
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * Method to check if a record matches every condition of the query
+     * It must be called on the query returned by prepare for the store
+     * @param store QuakeStore: the store holding the record
+     * @param id int: the index of the record
+     * @return boolean: true if the record matches, false if not
+     */
+    public boolean matches(QuakeStore store, int id)
+    {
+        boolean match = true;
+        double lat, lon, mag;
+        int date, time, locId;
+
+        if (hasRegion)
+        {
+            lat = store.getLatitude( id );
+            lon = store.getLongitude( id );
+            match = minLat <= lat && lat <= maxLat && QuakeGridIndex.inLongitudes( lon, minLon, maxLon );
+        }
+        if (match && hasCircle)
+        {
+            match = QuakeGridIndex.distanceKm( centerLat, centerLon, store.getLatitude( id ),
+                    store.getLongitude( id ) ) <= radiusKm;
+        }
+        if (match && hasDates)
+        {
+            date = store.getPackedDate( id );
+            match = minDate <= date && date <= maxDate;
+        }
+        if (match && hasMagnitudes)
+        {
+            mag = store.getRichter( id );
+            match = minMag <= mag && mag <= maxMag;
+        }
+        if (match && hasTimes)
+        {
+            time = store.getPackedTime( id );
+            if (minTime <= maxTime)
+            {
+                match = minTime <= time && time <= maxTime;
+            }
+            else                                // range goes past midnight
+            {
+                match = minTime <= time || time <= maxTime;
+            }
+        }
+        if (match && hasLocation())
+        {
+            locId = store.getLocationId( id );
+            match = locId < locationMatches.length && locationMatches[locId];
+        }
+
+        return match;
+    }
+}
@@ -8,11 +8,16 @@
  *  @author Michael Clinesmith
  ***********************************************************************************************/
 import java.io.IOException;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
 import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 
 public class QuakeRecord
 {
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4};
+    private static volatile Locale plainLocale = null;  // last default locale found to format numbers as 0-9 and '.'
+
     private Dates date;
     private Times time;
     private double latitude, longitude, richter;
@@ -358,6 +363,53 @@ public class QuakeRecord
         return equal;
     }
 
+    /**
+     * Method to check if an object is a QuakeRecord that contains the same data as this record
+     * @param obj Object: The object to compare
+     * @return boolean: True if the object is a QuakeRecord with the same data as isEqual checks, false if not
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        return this == obj || (obj instanceof QuakeRecord && isEqual( (QuakeRecord) obj ));
+    }
+
+    /**
+     * Method to get a hash code for the record
+     * Records that are isEqual have the same hash code, and a record has the same hash code as its copy in a QuakeStore
+     * @return int: The hash code of the record data
+     */
+    @Override
+    public int hashCode()
+    {
+        return hashOf( QuakeStore.packDate( getYear(), getMonth(), getDay() ),
+                QuakeStore.packTime( getHour(), getMinute(), getSecond() ), latitude, longitude, richter, getLocation() );
+    }
+
+    /**
+     * Method to get the hash code of record data in the packed form of a QuakeStore
+     * Adding 0.0 changes -0.0 to 0.0, so values that are == have the same hash code
+     * @param date int: the date of the quake in the form yyyymmdd
+     * @param time int: the time of the quake in the form hhmmssSSS
+     * @param lat double: the latitude of the quake
+     * @param lon double: the longitude of the quake
+     * @param ric double: the magnitude of the quake
+     * @param loc String: the location name
+     * @return int: the hash code of the data
+     */
+    public static int hashOf( int date, int time, double lat, double lon, double ric, String loc )
+    {
+        int hash = date;
+
+        hash = 31 * hash + time;
+        hash = 31 * hash + Double.hashCode( lat + 0.0 );
+        hash = 31 * hash + Double.hashCode( lon + 0.0 );
+        hash = 31 * hash + Double.hashCode( ric + 0.0 );
+        hash = 31 * hash + loc.hashCode();
+
+        return hash;
+    }
+
     /**
      * Method to convert the data in the QuakeRecord object to a String
      * @return String: A string representing the QuakeRecord object information
@@ -382,26 +434,122 @@ public class QuakeRecord
      */
     public String toModString()
     {
-        String str;
-
-        str = date.toModString() + " " +
-                time.toModString() + ", " +
-                latLongString() + ", \tMag: " +
-                String.format( "%.1f" , richter) +
-                "\t" + location.toString();
+        return appendModString( new StringBuilder( 80 ) ).toString();
+    }
 
-        return str;
+    /**
+     * Method to add the data in the QuakeRecord object to a StringBuilder in the way the instructor prefers
+     * The digits are added directly, so no temporary Strings are created
+     * @param builder StringBuilder: the builder to add the record to
+     * @return StringBuilder: the builder, to allow calls to be chained
+     */
+    public StringBuilder appendModString(StringBuilder builder)
+    {
+        date.appendModString( builder ).append( ' ' );
+        time.appendModString( builder ).append( ", " );
+        appendLatLong( builder, latitude, longitude ).append( ", \tMag: " );
+        appendFixed( builder, richter, 1 ).append( '\t' );
+        return builder.append( location.toString() );
     }
 
     /**
      * Method to create a displayable string representing the latitude and longitude in the QuakeRecord object
-     * @return
+     * @return String: the latitude and longitude in the form (lat,lon) with two decimal places
      */
     public String latLongString()
     {
-        String str;
+        return appendLatLong( new StringBuilder( 16 ), latitude, longitude ).toString();
+    }
 
-        str = String.format( "(%.2f,%.2f)", latitude, longitude );
-        return str;
+    /**
+     * Method to add a latitude and longitude to a StringBuilder in the form (lat,lon) with two decimal places
+     * @param builder StringBuilder: the builder to add the location to
+     * @param lat double: the latitude
+     * @param lon double: the longitude
+     * @return StringBuilder: the builder, to allow calls to be chained
+     */
+    public static StringBuilder appendLatLong(StringBuilder builder, double lat, double lon)
+    {
+        builder.append( '(' );
+        appendFixed( builder, lat, 2 ).append( ',' );
+        return appendFixed( builder, lon, 2 ).append( ')' );
+    }
+
+    /**
+     * Method to add a number to a StringBuilder with a fixed number of decimal places
+     * It gives the same result as String.format( "%.2f" ), which rounds half up from the shortest decimal that
+     * reads back as the number, so 0.15 becomes 0.2 rather than 0.1.  Numbers are formatted here when the default
+     * locale writes them with the digits 0 to 9 and a '.', and by String.format in any other locale, such as
+     * one with a decimal comma
+     * @param builder StringBuilder: the builder to add the number to
+     * @param value double: the number
+     * @param places int: the number of decimal places, from 1 to 4
+     * @return StringBuilder: the builder, to allow calls to be chained
+     */
+    public static StringBuilder appendFixed(StringBuilder builder, double value, int places)
+    {
+        double size = Math.abs( value );
+        double scale = POWERS_OF_TEN[places];
+        long scaled, fraction;
+
+        if (Double.isNaN( value ) || size >= 1e9 || !isPlainLocale())
+        {
+            builder.append( String.format( "%." + places + "f", value ) );     // rare, let Formatter handle it
+        }
+        else
+        {
+            // find the exact floor of size * scale; fma finds the sign of each difference without rounding first
+            scaled = (long) (size * scale);
+            while (scaled > 0 && Math.fma( size, scale, -scaled ) < 0)
+            {
+                scaled--;
+            }
+            while (Math.fma( size, scale, -(scaled + 1) ) >= 0)
+            {
+                scaled++;
+            }
+
+            // round up if the half-way decimal is at most half an ulp below the number, since the shortest
+            // decimal for the number is then the half-way decimal or above it
+            if (Math.fma( size, 2 * scale, -(2 * scaled + 1) ) >= -Math.ulp( size ) * scale)
+            {
+                scaled++;
+            }
+
+            if (Double.doubleToRawLongBits( value ) < 0)           // negative, including -0.0
+            {
+                builder.append( '-' );
+            }
+            builder.append( scaled / (long) scale ).append( '.' );
+            fraction = scaled % (long) scale;
+            for (long digit = (long) scale / 10; digit > 0; digit /= 10)
+            {
+                builder.append( (char) ('0' + fraction / digit % 10) );
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Method to check if the default locale formats numbers with the digits 0 to 9 and a '.' for the decimal point
+     * The last locale found to do so is saved, so the symbols are only looked up when the default locale changes
+     * @return boolean: true if numbers can be formatted without the locale, false if not
+     */
+    private static boolean isPlainLocale()
+    {
+        Locale locale = Locale.getDefault( Locale.Category.FORMAT );
+        DecimalFormatSymbols symbols;
+        boolean plain = locale.equals( plainLocale );
+
+        if (!plain)
+        {
+            symbols = DecimalFormatSymbols.getInstance( locale );
+            plain = symbols.getDecimalSeparator() == '.' && symbols.getZeroDigit() == '0';
+            if (plain)
+            {
+                plainLocale = locale;
+            }
+        }
+        return plain;
     }
 }
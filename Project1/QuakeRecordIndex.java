@@ -0,0 +1,61 @@
+/************************************************************************************************
+ *  This class handles a hash index of the records in a QuakeStore by their data
+ *
+ *  Records are put in buckets by QuakeRecord.hashOf, so a record with the same data as a given
+ *  QuakeRecord is found by checking only the records in one bucket instead of every record.
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public class QuakeRecordIndex extends QuakeHashIndex
+{
+    /**
+     * Constructor to create the index over a store
+     * @param store QuakeStore: the store holding the records
+     */
+    public QuakeRecordIndex(QuakeStore store)
+    {
+        super( store );
+    }
+
+    /**
+     * Method to get the hash code of a record, the same as the hash code of the QuakeRecord it was copied from
+     * @param id int: the index of the record in the store
+     * @return int: the hash code of the record data
+     */
+    @Override
+    protected int hashOf(int id)
+    {
+        return QuakeRecord.hashOf( store.getPackedDate( id ), store.getPackedTime( id ), store.getLatitude( id ),
+                store.getLongitude( id ), store.getRichter( id ), store.getLocation( id ) );
+    }
+
+    /**
+     * Method to find a record in the store with the same data as a record
+     * @param record QuakeRecord: the record to find
+     * @return int: the lowest index of a record with the same data, or -1 if there is none
+     */
+    public int find(QuakeRecord record)
+    {
+        int found = NONE;
+
+        for (int id = firstInBucket( record.hashCode() ); id != NONE; id = nextInBucket( id ))
+        {
+            if ((found == NONE || id < found) && store.isEqual( id, record ))
+            {
+                found = id;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Method to check if the store holds a record with the same data as a record
+     * @param record QuakeRecord: the record to look for
+     * @return boolean: true if a record with the same data is in the store, false if not
+     */
+    public boolean contains(QuakeRecord record)
+    {
+        return find( record ) != NONE;
+    }
+}
@@ -0,0 +1,204 @@
+/************************************************************************************************
+ *  This class handles reading the records of a QuakeStore without copying them
+ *
+ *  A view points at one record of a store and reads its fields straight from the columns.  One view
+ *  is moved from record to record, so going through any number of records creates no objects.
+ *  The view has no mutator methods, so the records cannot be changed through it.
+ *
+ *  A view is only good while the store does not change.  QuakeData hands out its views inside
+ *  forEachRecord and forEachMatch, while it holds its read lock; they must not be kept after the call.
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public class QuakeRecordView
+{
+    private QuakeStore store;
+    private int id;
+
+    /**
+     * Constructor to create a view of the first record of a store
+     * @param store QuakeStore: the store holding the records
+     */
+    public QuakeRecordView(QuakeStore store)
+    {
+        this.store = store;
+        id = 0;
+    }
+
+    /**
+     * Mutator method to move the view to another record
+     * @param i int: the index of the record in the store
+     * @return QuakeRecordView: this view, to allow calls to be chained
+     */
+    public QuakeRecordView moveTo(int i)
+    {
+        id = i;
+        return this;
+    }
+
+    /**
+     * Accessor method to get the index of the record the view is on
+     * @return int: the index of the record in the store
+     */
+    public int getIndex()
+    {
+        return id;
+    }
+
+    /**
+     * Accessor method to get the year of the quake
+     * @return int: The year of the quake
+     */
+    public int getYear()
+    {
+        return Dates.decodeYear( store.getPackedDate( id ) );
+    }
+
+    /**
+     * Accessor method to get the month of the quake
+     * @return int: The month of the quake
+     */
+    public int getMonth()
+    {
+        return Dates.decodeMonth( store.getPackedDate( id ) );
+    }
+
+    /**
+     * Accessor method to get the day of the quake
+     * @return int: The day of the quake
+     */
+    public int getDay()
+    {
+        return Dates.decodeDay( store.getPackedDate( id ) );
+    }
+
+    /**
+     * Accessor method to get the hour of the quake
+     * @return int: The hour of the quake
+     */
+    public int getHour()
+    {
+        return Times.decodeHour( store.getPackedTime( id ) );
+    }
+
+    /**
+     * Accessor method to get the minute of the quake
+     * @return int: The minute of the quake
+     */
+    public int getMinute()
+    {
+        return Times.decodeMinute( store.getPackedTime( id ) );
+    }
+
+    /**
+     * Accessor method to get the second (including decimal) of the quake
+     * @return double: The second (including decimal) of the quake, to the millisecond
+     */
+    public double getSecond()
+    {
+        return Times.decodeSecond( store.getPackedTime( id ) );
+    }
+
+    /**
+     * Accessor method to get the packed date of the quake
+     * @return int: The date of the quake in the form yyyymmdd
+     */
+    public int getPackedDate()
+    {
+        return store.getPackedDate( id );
+    }
+
+    /**
+     * Accessor method to get the packed time of the quake
+     * @return int: The time of the quake in the form hhmmssSSS
+     */
+    public int getPackedTime()
+    {
+        return store.getPackedTime( id );
+    }
+
+    /**
+     * Accessor method to get the date and time of the quake as one timestamp
+     * @return long: The timestamp of the quake in the form yyyymmddhhmmssSSS
+     */
+    public long getTimestamp()
+    {
+        return store.getTimestamp( id );
+    }
+
+    /**
+     * Accessor method to get the latitude of the quake
+     * @return double: The latitude of the quake
+     */
+    public double getLatitude()
+    {
+        return store.getLatitude( id );
+    }
+
+    /**
+     * Accessor method to get the longitude of the quake
+     * @return double: The longitude of the quake
+     */
+    public double getLongitude()
+    {
+        return store.getLongitude( id );
+    }
+
+    /**
+     * Accessor method to get the magnitude of the quake
+     * @return double: The magnitude of the quake
+     */
+    public double getRichter()
+    {
+        return store.getRichter( id );
+    }
+
+    /**
+     * Accessor method to get the location of the quake
+     * The name is shared by every record with the same location, so no String is created
+     * @return String: The location of the quake
+     */
+    public String getLocation()
+    {
+        return store.getLocation( id );
+    }
+
+    /**
+     * Method to check if a record contains the same data as the record the view is on
+     * @param record QuakeRecord: A record saved in a QuakeRecord object
+     * @return boolean: True if the records contain the same data, false if not
+     */
+    public boolean isEqual(QuakeRecord record)
+    {
+        return store.isEqual( id, record );
+    }
+
+    /**
+     * Method to add the record to a StringBuilder in the form of QuakeRecord.toModString, without creating objects
+     * @param builder StringBuilder: the builder to add the record to
+     * @return StringBuilder: the builder, to allow calls to be chained
+     */
+    public StringBuilder appendModString(StringBuilder builder)
+    {
+        return store.appendModString( id, builder );
+    }
+
+    /**
+     * Method to copy the record into a QuakeRecord object that can be kept after the view moves
+     * @return QuakeRecord: A new QuakeRecord object holding the data of the record
+     */
+    public QuakeRecord toRecord()
+    {
+        return store.getRecord( id );
+    }
+
+    /**
+     * Method to convert the record to a String in the form of QuakeRecord.toModString
+     * @return String: A string representing the record
+     */
+    public String toModString()
+    {
+        return appendModString( new StringBuilder( 80 ) ).toString();
+    }
+}
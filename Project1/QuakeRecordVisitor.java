@@ -0,0 +1,17 @@
+/************************************************************************************************
+ *  This interface is for code that reads the records of a QuakeData one at a time
+ *
+ *  QuakeData.forEachRecord and forEachMatch call visit with the same QuakeRecordView moved to each
+ *  record in turn, so the view must only be used during the call
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+public interface QuakeRecordVisitor
+{
+    /**
+     * Method called for each record
+     * @param record QuakeRecordView: a view of the record, good only until the method returns
+     */
+    void visit(QuakeRecordView record);
+}
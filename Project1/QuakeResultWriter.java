@@ -0,0 +1,127 @@
+/************************************************************************************************
+ *  This class handles writing the results of a quake search to the console or a file
+ *
+ *  The lines are formatted into one reusable StringBuilder and written to the output in blocks of
+ *  about BLOCK_SIZE characters, so a large result is written with a few large writes rather than
+ *  a write and a flush for every record
+ *
+ *  Like PrintWriter, the methods do not throw exceptions; use checkError to find if writing failed
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.io.PrintWriter;
+
+public class QuakeResultWriter
+{
+    public static final int BLOCK_SIZE = 1 << 16;          // characters collected before they are written
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private PrintWriter out;
+    private StringBuilder buffer = new StringBuilder( BLOCK_SIZE + 256 );
+    private char[] block = new char[0];                     // reused to pass the buffer to the output
+
+    /**
+     * Constructor to create a writer that sends the lines to an output
+     * For the console use new PrintWriter( System.out ) and call flush rather than close when done
+     * @param out PrintWriter: the output to write the lines to
+     */
+    public QuakeResultWriter(PrintWriter out)
+    {
+        this.out = out;
+    }
+
+    /**
+     * Method to add a line to the output
+     * @param line String: the line, without a line separator
+     */
+    public void writeLine(String line)
+    {
+        buffer.append( line ).append( LINE_SEPARATOR );
+        writeIfFull();
+    }
+
+    /**
+     * Method to add a record to the output as a line in the form of QuakeRecord.toModString
+     * The record is formatted straight into the buffer without creating any objects
+     * @param store QuakeStore: the store holding the record
+     * @param id int: the index of the record
+     */
+    public void writeRecord(QuakeStore store, int id)
+    {
+        store.appendModString( id, buffer ).append( LINE_SEPARATOR );
+        writeIfFull();
+    }
+
+    /**
+     * Method to add the records found by a search to the output, followed by the number of records found
+     * @param store QuakeStore: the store holding the records
+     * @param found IntList: the indexes of the records found
+     */
+    public void writeRecords(QuakeStore store, IntList found)
+    {
+        for (int k = 0; k < found.size(); k++)
+        {
+            writeRecord( store, found.get( k ) );
+        }
+        writeLine( found.size() + " records found." );
+    }
+
+    /**
+     * Method to write all the lines added so far and flush the output
+     */
+    public void flush()
+    {
+        writeBuffer();
+        out.flush();
+    }
+
+    /**
+     * Method to write all the lines added so far and close the output
+     */
+    public void close()
+    {
+        writeBuffer();
+        out.close();
+    }
+
+    /**
+     * Method to check if there was a problem writing to the output
+     * @return boolean: true if writing failed, false if not
+     */
+    public boolean checkError()
+    {
+        writeBuffer();
+        return out.checkError();
+    }
+
+    /**
+     * Method to write the buffer once it holds a block of characters
+     */
+    private void writeIfFull()
+    {
+        if (buffer.length() >= BLOCK_SIZE)
+        {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * Method to write the characters in the buffer to the output and empty the buffer
+     */
+    private void writeBuffer()
+    {
+        int length = buffer.length();
+
+        if (length > 0)
+        {
+            if (block.length < length)
+            {
+                block = new char[Math.max( length, BLOCK_SIZE + 256 )];
+            }
+            buffer.getChars( 0, length, block, 0 );
+            out.write( block, 0, length );
+            buffer.setLength( 0 );
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/************************************************************************************************
+ *  This class handles saving a QuakeStore to a binary snapshot file and loading it back
+ *
+ *  A snapshot is written next to the text file it was loaded from, so the next start can load the
+ *  columns straight from a memory mapped file instead of parsing the text again.  The snapshot holds
+ *  the number of bytes of the text file loaded and its modified time, and is not used if the text file
+ *  has changed since.
+ *
+ *  File layout, all numbers big-endian:
+ *    header    magic, version, source length, source modified time, number of records,
+ *              number of records missed, number of locations, string table size, CRC32 of the body
+ *    body      latitude, longitude and richter columns as doubles,
+ *              packed date, packed time and location id columns as ints,
+ *              string table of location names, each an int length followed by UTF-8 bytes
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class QuakeSnapshot
+{
+    public static final String EXTENSION = ".snap";         // added to the text file name
+    public static final int MAGIC = 0x514B534E;             // "QKSN"
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int BLOCK_SIZE = 1 << 20;          // bytes collected before each write
+
+    private QuakeStore store;
+    private int numOfRecords, numOfRecordsMissed;
+    private long sourceLength;                              // bytes of the text file held in the snapshot
+
+    /**
+     * Constructor to create a snapshot reader and writer for a store
+     * @param store QuakeStore: the store to save, or to add the loaded records to
+     */
+    public QuakeSnapshot(QuakeStore store)
+    {
+        this.store = store;
+        numOfRecords = 0;
+        numOfRecordsMissed = 0;
+        sourceLength = 0;
+    }
+
+    /**
+     * Accessor method to get the number of records loaded from the snapshot
+     * @return int: the number of records loaded
+     */
+    public int getNumOfRecords()
+    {
+        return numOfRecords;
+    }
+
+    /**
+     * Accessor method to get the number of records that were missed when the text file was loaded
+     * @return int: the number of bad records in the text file
+     */
+    public int getNumOfRecordsMissed()
+    {
+        return numOfRecordsMissed;
+    }
+
+    /**
+     * Accessor method to get the number of bytes of the text file the loaded snapshot holds the records of
+     * @return long: the length of the text file when the snapshot was made
+     */
+    public long getSourceLength()
+    {
+        return sourceLength;
+    }
+
+    /**
+     * Method to get the name of the snapshot file for a text file
+     * @param fileName String: the name of the text file
+     * @return String: the name of its snapshot file
+     */
+    public static String snapshotName(String fileName)
+    {
+        return fileName + EXTENSION;
+    }
+
+    /**
+     * Method to load the snapshot of a text file into the store
+     * Nothing is added to the store unless the whole snapshot is current and its checksum is correct
+     * @param fileName String: the name of the text file the snapshot was made from
+     * @return boolean: true if the records were loaded, false if there is no snapshot or it is out of date or damaged
+     * @throws IOException if the snapshot cannot be read
+     */
+    public boolean load(String fileName) throws IOException
+    {
+        File source = new File( fileName );
+        ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+        MappedByteBuffer body;
+        DoubleBuffer latitude, longitude, richter;
+        IntBuffer packedDate, packedTime, locationId;
+        CRC32 crc = new CRC32();
+        int records, locations, tableSize;
+        int[] newIds;
+        byte[] name;
+        long checksum, bodySize;
+        boolean loaded = false;
+
+        try (FileChannel channel = FileChannel.open( Paths.get( snapshotName( fileName ) ), StandardOpenOption.READ ))
+        {
+            while (header.hasRemaining() && channel.read( header ) >= 0)
+            {
+                // keep reading until the header is full or the file ends
+            }
+            header.flip();
+
+            if (header.remaining() == HEADER_SIZE && header.getInt() == MAGIC && header.getInt() == VERSION &&
+                    header.getLong() <= source.length() && header.getLong() == source.lastModified())
+            {
+                records = header.getInt();
+                numOfRecordsMissed = header.getInt();
+                locations = header.getInt();
+                tableSize = header.getInt();
+                checksum = header.getLong();
+                bodySize = 36L * records + tableSize;
+
+                // the body is mapped as one buffer, so it must be under 2 GB
+                if (records >= 0 && locations >= 0 && tableSize >= 0 && bodySize <= Integer.MAX_VALUE &&
+                        channel.size() == HEADER_SIZE + bodySize)
+                {
+                    body = channel.map( FileChannel.MapMode.READ_ONLY, HEADER_SIZE, bodySize );
+                    crc.update( body );
+                    body.rewind();
+
+                    if (crc.getValue() == checksum)
+                    {
+                        latitude = section( body, 0 ).asDoubleBuffer();
+                        longitude = section( body, 8 * records ).asDoubleBuffer();
+                        richter = section( body, 16 * records ).asDoubleBuffer();
+                        packedDate = section( body, 24 * records ).asIntBuffer();
+                        packedTime = section( body, 28 * records ).asIntBuffer();
+                        locationId = section( body, 32 * records ).asIntBuffer();
+
+                        // the store may already have locations, so map snapshot ids to store ids
+                        body.position( 36 * records );
+                        newIds = new int[locations];
+                        for (int id = 0; id < locations; id++)
+                        {
+                            name = new byte[body.getInt()];
+                            body.get( name );
+                            newIds[id] = store.internLocation( new String( name, StandardCharsets.UTF_8 ) );
+                        }
+
+                        for (int i = 0; i < records; i++)
+                        {
+                            store.add( packedDate.get( i ), packedTime.get( i ), latitude.get( i ), longitude.get( i ),
+                                    richter.get( i ), newIds[locationId.get( i )] );
+                        }
+                        numOfRecords = records;
+                        sourceLength = header.getLong( 8 );
+                        loaded = true;
+                    }
+                }
+            }
+        }
+        catch (NoSuchFileException e)
+        {
+            loaded = false;                 // no snapshot has been made yet
+        }
+
+        if (!loaded)
+        {
+            numOfRecordsMissed = 0;
+        }
+        return loaded;
+    }
+
+    /**
+     * Method to save the store as the snapshot of a text file
+     * The snapshot is written to a temporary file first, so a failed save never leaves a damaged snapshot
+     * The text file may hold more bytes than were loaded, such as a line still being written, and those bytes
+     * are read from sourceLength by following the file
+     * @param fileName String: the name of the text file the store was loaded from
+     * @param sourceLength long: the number of bytes of the text file that were loaded
+     * @param numOfRecordsMissed int: the number of bad records found in the text file
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void save(String fileName, long sourceLength, int numOfRecordsMissed) throws IOException
+    {
+        File source = new File( fileName );
+        Path snapshot = Paths.get( snapshotName( fileName ) );
+        Path temporary = Paths.get( snapshotName( fileName ) + ".tmp" );
+        ByteBuffer block = ByteBuffer.allocate( BLOCK_SIZE );
+        ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+        CRC32 crc = new CRC32();
+        int records = store.size();
+        int locations = store.getNumOfLocations();
+        int tableSize = 0;
+        byte[][] names = new byte[locations][];
+
+        for (int id = 0; id < locations; id++)
+        {
+            names[id] = store.getLocationName( id ).getBytes( StandardCharsets.UTF_8 );
+            tableSize += 4 + names[id].length;
+        }
+
+        try (FileChannel channel = FileChannel.open( temporary, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING ))
+        {
+            channel.position( HEADER_SIZE );            // the header is written last, once the CRC is known
+
+            for (int column = 0; column < 6; column++)
+            {
+                for (int i = 0; i < records; i++)
+                {
+                    if (block.remaining() < 8)
+                    {
+                        writeBlock( channel, block, crc );
+                    }
+                    switch (column)
+                    {
+                        case 0: block.putDouble( store.getLatitude( i ) ); break;
+                        case 1: block.putDouble( store.getLongitude( i ) ); break;
+                        case 2: block.putDouble( store.getRichter( i ) ); break;
+                        case 3: block.putInt( store.getPackedDate( i ) ); break;
+                        case 4: block.putInt( store.getPackedTime( i ) ); break;
+                        default: block.putInt( store.getLocationId( i ) ); break;
+                    }
+                }
+            }
+
+            for (byte[] name : names)
+            {
+                if (block.remaining() < 4 + name.length)
+                {
+                    writeBlock( channel, block, crc );
+                }
+                if (block.capacity() < 4 + name.length)         // name longer than a block
+                {
+                    block = ByteBuffer.allocate( 4 + name.length );
+                }
+                block.putInt( name.length ).put( name );
+            }
+            writeBlock( channel, block, crc );
+
+            header.putInt( MAGIC ).putInt( VERSION ).putLong( sourceLength ).putLong( source.lastModified() )
+                    .putInt( records ).putInt( numOfRecordsMissed ).putInt( locations ).putInt( tableSize )
+                    .putLong( crc.getValue() );
+            header.flip();
+            while (header.hasRemaining())
+            {
+                channel.write( header, HEADER_SIZE - header.remaining() );
+            }
+            channel.force( false );
+        }
+
+        Files.move( temporary, snapshot, StandardCopyOption.REPLACE_EXISTING );
+    }
+
+    /**
+     * Method to write the bytes in a buffer to a channel, add them to the CRC, and empty the buffer
+     * @param channel FileChannel: the file being written
+     * @param block ByteBuffer: the buffer, with the bytes to write before its position
+     * @param crc CRC32: the checksum of the bytes written so far
+     * @throws IOException if the bytes cannot be written
+     */
+    private static void writeBlock(FileChannel channel, ByteBuffer block, CRC32 crc) throws IOException
+    {
+        block.flip();
+        crc.update( block.array(), block.arrayOffset(), block.limit() );
+        while (block.hasRemaining())
+        {
+            channel.write( block );
+        }
+        block.clear();
+    }
+
+    /**
+     * Method to get a view of one column section of the mapped body
+     * @param body MappedByteBuffer: the body of the snapshot
+     * @param offset int: the offset of the section in the body
+     * @return ByteBuffer: a buffer starting at the section
+     */
+    private static ByteBuffer section(MappedByteBuffer body, int offset)
+    {
+        ByteBuffer view = body.duplicate();
+
+        view.position( offset );
+        return view.slice();
+    }
+}
@@ -0,0 +1,321 @@
+/************************************************************************************************
+ *  This class handles an index of the records of a QuakeStore sorted by a key
+ *
+ *  The keys and record indexes are kept in two parallel arrays sorted by key, so a range of keys is
+ *  found with two binary searches and the matching records are a contiguous slice of the arrays.
+ *
+ *  New records are added to an unsorted pending area at the end of the arrays and removed records
+ *  are marked as deleted.  The arrays are put back in order the next time they are searched, so
+ *  loading a file does not pay for keeping the index sorted after every record.  Putting the
+ *  arrays back in order is synchronized, so any number of threads may search at once as long as
+ *  no thread is adding or removing records.
+ *
+ *  Subclasses choose the key by implementing keyOf
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.util.Arrays;
+
+public abstract class QuakeSortedIndex implements QuakeIndex
+{
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int DELETED = -1;              // record index of a removed entry
+
+    protected QuakeStore store;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int size;                                   // number of entries, including deleted entries
+    private int sortedSize;                             // entries before this position are sorted
+    private int numOfDeleted;                           // deleted entries in the sorted area
+    private IntList positionOf = new IntList();         // element i is the position of record i in the arrays
+
+    /**
+     * Constructor to create the index over a store
+     * The index must be registered with store.addIndex to be kept up to date
+     * @param store QuakeStore: the store holding the records
+     */
+    public QuakeSortedIndex(QuakeStore store)
+    {
+        this.store = store;
+        size = 0;
+        sortedSize = 0;
+        numOfDeleted = 0;
+    }
+
+    /**
+     * Method to get the key of a record
+     * @param id int: the index of the record in the store
+     * @return long: the key the record is sorted by
+     */
+    protected abstract long keyOf(int id);
+
+    /**
+     * Method to add a record to the pending area
+     * @param id int: the index of the new record
+     */
+    @Override
+    public void recordAdded(int id)
+    {
+        if (size == keys.length)
+        {
+            keys = Arrays.copyOf( keys, size * 2 );
+            ids = Arrays.copyOf( ids, size * 2 );
+        }
+        keys[size] = keyOf( id );
+        ids[size] = id;
+
+        while (positionOf.size() <= id)
+        {
+            positionOf.add( 0 );
+        }
+        positionOf.set( id, size );
+        size++;
+    }
+
+    /**
+     * Method to remove a record from the index
+     * A pending record is removed at once, a sorted record is marked as deleted until the next search
+     * @param id int: the index of the record being removed
+     */
+    @Override
+    public void recordRemoved(int id)
+    {
+        int position = positionOf.get( id );
+
+        if (position < sortedSize)
+        {
+            ids[position] = DELETED;
+            numOfDeleted++;
+        }
+        else                                // move the last pending entry into the position
+        {
+            size--;
+            keys[position] = keys[size];
+            ids[position] = ids[size];
+            if (position < size)
+            {
+                positionOf.set( ids[position], position );
+            }
+        }
+    }
+
+    /**
+     * Method to change the index of a record
+     * @param from int: the old index of the record
+     * @param to int: the new index of the record
+     */
+    @Override
+    public void recordMoved(int from, int to)
+    {
+        int position = positionOf.get( from );
+
+        ids[position] = to;
+        positionOf.set( to, position );
+    }
+
+    /**
+     * Method to renumber the records after some are removed and the rest move down to fill the gaps
+     * Deleted entries hold DELETED, so they are left alone
+     * @param newIds int[]: element i is the new index of the record that had index i, or -1 if it was removed
+     */
+    @Override
+    public void recordsRenumbered(int[] newIds)
+    {
+        for (int position = 0; position < size; position++)
+        {
+            if (ids[position] != DELETED)
+            {
+                ids[position] = newIds[ids[position]];
+            }
+        }
+        positionOf.compact( newIds );
+    }
+
+    /**
+     * Method to find the records with keys in a range
+     * @param minKey long: the smallest key to find
+     * @param maxKey long: the largest key to find
+     * @return IntList: the indexes of the records found, in increasing order
+     */
+    public IntList search(long minKey, long maxKey)
+    {
+        IntList found = new IntList();
+        int first, last;
+
+        sort();
+        first = lowerBound( minKey );
+        last = lowerBound( maxKey + 1 );
+        if (maxKey == Long.MAX_VALUE)
+        {
+            last = size;
+        }
+
+        for (int position = first; position < last; position++)
+        {
+            found.add( ids[position] );
+        }
+
+        found.sort();                           // keep the order of the records in the store
+        return found;
+    }
+
+    /**
+     * Method to count the records with keys in a range
+     * @param minKey long: the smallest key to count
+     * @param maxKey long: the largest key to count
+     * @return int: the number of records with keys in the range
+     */
+    public int count(long minKey, long maxKey)
+    {
+        int last;
+
+        sort();
+        last = maxKey == Long.MAX_VALUE ? size : lowerBound( maxKey + 1 );
+
+        return Math.max( 0, last - lowerBound( minKey ) );
+    }
+
+    /**
+     * Method to find the first position of a key that is not less than a value
+     * The arrays must be sorted
+     * @param key long: the value to search for
+     * @return int: the first position with a key of at least the value, or size if there is none
+     */
+    private int lowerBound(long key)
+    {
+        int low = 0, high = size, middle;
+
+        while (low < high)
+        {
+            middle = (low + high) >>> 1;
+            if (keys[middle] < key)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Method to put the arrays back in order by sorting the pending entries, merging them with the
+     * sorted entries, and dropping the deleted entries
+     * Searches that run at the same time wait for the first one to sort, then find nothing left to do
+     */
+    private synchronized void sort()
+    {
+        long[] newKeys;
+        int[] newIds;
+        int numOfPending = size - sortedSize;
+        int s = 0, p = sortedSize, n = 0;
+
+        if (numOfPending > 0 || numOfDeleted > 0)
+        {
+            mergeSort( keys, ids, sortedSize, size );
+
+            if (numOfDeleted == 0 && (sortedSize == 0 || keys[sortedSize - 1] <= keys[sortedSize]))
+            {
+                // pending keys all come after the sorted keys, which is usual for a feed in time order
+                for (int position = sortedSize; position < size; position++)
+                {
+                    positionOf.set( ids[position], position );
+                }
+            }
+            else
+            {
+                newKeys = new long[keys.length];
+                newIds = new int[ids.length];
+
+                while (s < sortedSize || p < size)
+                {
+                    if (s < sortedSize && ids[s] == DELETED)
+                    {
+                        s++;
+                    }
+                    else
+                    {
+                        if (p == size || (s < sortedSize && keys[s] <= keys[p]))
+                        {
+                            newKeys[n] = keys[s];
+                            newIds[n] = ids[s];
+                            s++;
+                        }
+                        else
+                        {
+                            newKeys[n] = keys[p];
+                            newIds[n] = ids[p];
+                            p++;
+                        }
+                        positionOf.set( newIds[n], n );
+                        n++;
+                    }
+                }
+
+                keys = newKeys;
+                ids = newIds;
+                size = n;
+                numOfDeleted = 0;
+            }
+            sortedSize = size;
+        }
+    }
+
+    /**
+     * Method to sort part of the parallel key and index arrays by key
+     * The sort is stable, so entries with the same key keep the order they were added in
+     * @param keys long[]: the keys
+     * @param ids int[]: the record indexes that go with the keys
+     * @param from int: the first position to sort
+     * @param to int: the position after the last one to sort
+     */
+    private static void mergeSort(long[] keys, int[] ids, int from, int to)
+    {
+        long[] tempKeys;
+        int[] tempIds;
+        int length = to - from;
+        int left, right, middle, end, n;
+
+        if (length > 1)
+        {
+            tempKeys = new long[length];
+            tempIds = new int[length];
+
+            // merge runs of width 1, 2, 4 ... from the arrays into the temporary arrays and back
+            for (int width = 1; width < length; width *= 2)
+            {
+                for (int start = from; start < to; start += 2 * width)
+                {
+                    middle = Math.min( start + width, to );
+                    end = Math.min( start + 2 * width, to );
+                    left = start;
+                    right = middle;
+                    n = start - from;
+
+                    while (left < middle || right < end)
+                    {
+                        if (right == end || (left < middle && keys[left] <= keys[right]))
+                        {
+                            tempKeys[n] = keys[left];
+                            tempIds[n] = ids[left];
+                            left++;
+                        }
+                        else
+                        {
+                            tempKeys[n] = keys[right];
+                            tempIds[n] = ids[right];
+                            right++;
+                        }
+                        n++;
+                    }
+                }
+                System.arraycopy( tempKeys, 0, keys, from, length );
+                System.arraycopy( tempIds, 0, ids, from, length );
+            }
+        }
+    }
+}
@@ -0,0 +1,563 @@
+/************************************************************************************************
+ *  This class handles the storage of quake records in a columnar form
+ *
+ *  Instead of an array of QuakeRecord objects, each field of a record is kept in its own primitive
+ *  array so that searches scan contiguous data without following object references.
+ *  The date is packed into an int of the form yyyymmdd, the time into an int of the form hhmmssSSS
+ *  and the location is stored as an id into a LocationDictionary of the unique location names
+ *
+ *  The columns are split into fixed size chunks.  When the store is full a new chunk is added and only
+ *  the small directory of chunks is ever copied, so adding a record is O(1) without long pauses to copy
+ *  a large array
+ *
+ *  Indexes registered with addIndex are told about every record that is added, removed or moved
+ *
+ *  CST 283 Programming Assignment 1
+ *  @author Michael Clinesmith
+ ***********************************************************************************************/
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class QuakeStore
+{
+    // records per chunk is a power of 2 so a record index splits into a chunk and an offset with shifts
+    public static final int CHUNK_BITS = 14;
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_CHUNKS = 4;
+
+    private int size;
+    private int numOfChunks;
+
+    // record columns, record i is at chunk i >> CHUNK_BITS and offset i & CHUNK_MASK of each column
+    private double[][] latitude, longitude, richter;
+    private int[][] packedDate, packedTime, locationId;
+
+    // table of unique location names, the location id is the id of the name in the dictionary
+    private LocationDictionary locations = new LocationDictionary();
+
+    // indexes that are kept up to date as records change
+    private ArrayList<QuakeIndex> indexes = new ArrayList<>();
+
+    /**
+     * No-argument constructor to create an empty store
+     */
+    public QuakeStore()
+    {
+        size = 0;
+        numOfChunks = 0;
+
+        latitude = new double[INITIAL_CHUNKS][];
+        longitude = new double[INITIAL_CHUNKS][];
+        richter = new double[INITIAL_CHUNKS][];
+        packedDate = new int[INITIAL_CHUNKS][];
+        packedTime = new int[INITIAL_CHUNKS][];
+        locationId = new int[INITIAL_CHUNKS][];
+    }
+
+    /**
+     * Accessor method to get the number of records in the store
+     * @return int: the number of records in the store
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Method to register an index to be told about changes to the records
+     * Records already in the store are added to the index
+     * @param index QuakeIndex: the index to keep up to date
+     */
+    public void addIndex(QuakeIndex index)
+    {
+        indexes.add( index );
+        for (int i = 0; i < size; i++)
+        {
+            index.recordAdded( i );
+        }
+    }
+
+    /**
+     * Method to stop telling an index about changes to the records
+     * @param index QuakeIndex: the index registered with addIndex
+     */
+    public void removeIndex(QuakeIndex index)
+    {
+        indexes.remove( index );
+    }
+
+    /**
+     * Accessor method to get the number of records the store can hold before another chunk is needed
+     * @return int: the number of records in the chunks already created
+     */
+    public int getCapacity()
+    {
+        return numOfChunks * CHUNK_SIZE;
+    }
+
+    /**
+     * Method to add a record to the end of the store
+     * @param record QuakeRecord: the record to copy into the store
+     */
+    public void add(QuakeRecord record)
+    {
+        add( packDate( record.getYear(), record.getMonth(), record.getDay() ),
+                packTime( record.getHour(), record.getMinute(), record.getSecond() ),
+                record.getLatitude(), record.getLongitude(), record.getRichter(),
+                internLocation( record.getLocation() ) );
+    }
+
+    /**
+     * Method to add a record that is already in packed form to the end of the store
+     * @param date int: the date of the quake in the form yyyymmdd
+     * @param time int: the time of the quake in the form hhmmssSSS
+     * @param lat double: the latitude of the quake
+     * @param lon double: the longitude of the quake
+     * @param ric double: the magnitude of the quake
+     * @param locId int: the id of the location name, as returned by internLocation
+     */
+    public void add(int date, int time, double lat, double lon, double ric, int locId)
+    {
+        int c, j;
+
+        if (size == getCapacity())              // if all chunks full, add another chunk
+        {
+            addChunk();
+        }
+
+        c = size >>> CHUNK_BITS;
+        j = size & CHUNK_MASK;
+        latitude[c][j] = lat;
+        longitude[c][j] = lon;
+        richter[c][j] = ric;
+        packedDate[c][j] = date;
+        packedTime[c][j] = time;
+        locationId[c][j] = locId;
+        size++;
+
+        for (QuakeIndex index : indexes)
+        {
+            index.recordAdded( size - 1 );
+        }
+    }
+
+    /**
+     * Method to write new data over a record, keeping its place in the store
+     * The indexes are told the old record is removed and the new one added at the same index
+     * @param i int: the index of the record to replace
+     * @param date int: the date of the quake in the form yyyymmdd
+     * @param time int: the time of the quake in the form hhmmssSSS
+     * @param lat double: the latitude of the quake
+     * @param lon double: the longitude of the quake
+     * @param ric double: the magnitude of the quake
+     * @param locId int: the id of the location name, as returned by internLocation
+     */
+    public void replace(int i, int date, int time, double lat, double lon, double ric, int locId)
+    {
+        int c = i >>> CHUNK_BITS, j = i & CHUNK_MASK;
+
+        for (QuakeIndex index : indexes)
+        {
+            index.recordRemoved( i );
+        }
+
+        latitude[c][j] = lat;
+        longitude[c][j] = lon;
+        richter[c][j] = ric;
+        packedDate[c][j] = date;
+        packedTime[c][j] = time;
+        locationId[c][j] = locId;
+
+        for (QuakeIndex index : indexes)
+        {
+            index.recordAdded( i );
+        }
+    }
+
+    /**
+     * Method to remove a record from the store
+     * The last record in the store is moved into the place of the removed record
+     * @param i int: the index of the record to remove
+     */
+    public void removeAt(int i)
+    {
+        int last = size - 1;
+        int c = i >>> CHUNK_BITS, j = i & CHUNK_MASK;
+        int lc = last >>> CHUNK_BITS, lj = last & CHUNK_MASK;
+
+        for (QuakeIndex index : indexes)
+        {
+            index.recordRemoved( i );
+        }
+
+        latitude[c][j] = latitude[lc][lj];
+        longitude[c][j] = longitude[lc][lj];
+        richter[c][j] = richter[lc][lj];
+        packedDate[c][j] = packedDate[lc][lj];
+        packedTime[c][j] = packedTime[lc][lj];
+        locationId[c][j] = locationId[lc][lj];
+
+        if (i != last)
+        {
+            for (QuakeIndex index : indexes)
+            {
+                index.recordMoved( last, i );
+            }
+        }
+        size--;
+    }
+
+    /**
+     * Method to remove a record from the store without changing the order of the other records
+     * Every record after the removed one is moved down one place, which takes time in proportion to the
+     * size of the store rather than the O(1) of removeAt.  To remove many records use removeAllInOrder
+     * @param i int: the index of the record to remove
+     */
+    public void removeAtInOrder(int i)
+    {
+        IntList ids = new IntList( 1 );
+
+        ids.add( i );
+        removeAllInOrder( ids );
+    }
+
+    /**
+     * Method to remove a group of records from the store without changing the order of the other records
+     * The store is compacted in one pass, moving each record kept down over the gaps, and each index is
+     * told once with recordsRenumbered, so removing any number of records takes time in proportion to
+     * the size of the store
+     * @param ids IntList: the indexes of the records to remove, in increasing order with no repeats
+     */
+    public void removeAllInOrder(IntList ids)
+    {
+        int[] newIds;
+        int kept = 0, k = 0;
+
+        if (ids.size() > 0)
+        {
+            for (QuakeIndex index : indexes)
+            {
+                for (int r = 0; r < ids.size(); r++)
+                {
+                    index.recordRemoved( ids.get( r ) );
+                }
+            }
+
+            newIds = new int[size];
+            for (int i = 0; i < size; i++)
+            {
+                if (k < ids.size() && ids.get( k ) == i)
+                {
+                    newIds[i] = -1;
+                    k++;
+                }
+                else
+                {
+                    if (kept != i)
+                    {
+                        moveRecord( i, kept );
+                    }
+                    newIds[i] = kept;
+                    kept++;
+                }
+            }
+            size = kept;
+
+            for (QuakeIndex index : indexes)
+            {
+                index.recordsRenumbered( newIds );
+            }
+        }
+    }
+
+    /**
+     * Method to copy the data of a record over another record
+     * @param from int: the index of the record to copy
+     * @param to int: the index of the record to write over
+     */
+    private void moveRecord(int from, int to)
+    {
+        int c = to >>> CHUNK_BITS, j = to & CHUNK_MASK;
+        int fc = from >>> CHUNK_BITS, fj = from & CHUNK_MASK;
+
+        latitude[c][j] = latitude[fc][fj];
+        longitude[c][j] = longitude[fc][fj];
+        richter[c][j] = richter[fc][fj];
+        packedDate[c][j] = packedDate[fc][fj];
+        packedTime[c][j] = packedTime[fc][fj];
+        locationId[c][j] = locationId[fc][fj];
+    }
+
+    /**
+     * Method to remove every record from the store
+     * The chunks and location names are kept, so the store can be filled again without creating them
+     */
+    public void clear()
+    {
+        while (size > 0)
+        {
+            removeAt( size - 1 );               // removing the last record moves no other record
+        }
+    }
+
+    /**
+     * Method to add an empty chunk to every column
+     * The chunk directory doubles in length when it is full, which only copies the chunk references
+     */
+    private void addChunk()
+    {
+        int newLength;
+
+        if (numOfChunks == latitude.length)
+        {
+            newLength = latitude.length * 2;
+            latitude = Arrays.copyOf( latitude, newLength );
+            longitude = Arrays.copyOf( longitude, newLength );
+            richter = Arrays.copyOf( richter, newLength );
+            packedDate = Arrays.copyOf( packedDate, newLength );
+            packedTime = Arrays.copyOf( packedTime, newLength );
+            locationId = Arrays.copyOf( locationId, newLength );
+        }
+
+        latitude[numOfChunks] = new double[CHUNK_SIZE];
+        longitude[numOfChunks] = new double[CHUNK_SIZE];
+        richter[numOfChunks] = new double[CHUNK_SIZE];
+        packedDate[numOfChunks] = new int[CHUNK_SIZE];
+        packedTime[numOfChunks] = new int[CHUNK_SIZE];
+        locationId[numOfChunks] = new int[CHUNK_SIZE];
+        numOfChunks++;
+    }
+
+    /**
+     * Accessor method to get the latitude of a record
+     * @param i int: the index of the record
+     * @return double: the latitude of the quake
+     */
+    public double getLatitude(int i)
+    {
+        return latitude[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    /**
+     * Accessor method to get the longitude of a record
+     * @param i int: the index of the record
+     * @return double: the longitude of the quake
+     */
+    public double getLongitude(int i)
+    {
+        return longitude[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    /**
+     * Accessor method to get the magnitude of a record
+     * @param i int: the index of the record
+     * @return double: the magnitude of the quake
+     */
+    public double getRichter(int i)
+    {
+        return richter[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    /**
+     * Accessor method to get the packed date of a record
+     * @param i int: the index of the record
+     * @return int: the date of the quake in the form yyyymmdd
+     */
+    public int getPackedDate(int i)
+    {
+        return packedDate[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    /**
+     * Accessor method to get the packed time of a record
+     * @param i int: the index of the record
+     * @return int: the time of the quake in the form hhmmssSSS
+     */
+    public int getPackedTime(int i)
+    {
+        return packedTime[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    /**
+     * Accessor method to get the date and time of a record as one timestamp
+     * @param i int: the index of the record
+     * @return long: the date and time of the quake in the form yyyymmddhhmmssSSS
+     */
+    public long getTimestamp(int i)
+    {
+        return Dates.encodeTimestamp( getPackedDate( i ), getPackedTime( i ) );
+    }
+
+    /**
+     * Accessor method to get the location id of a record
+     * @param i int: the index of the record
+     * @return int: the id of the location name of the quake
+     */
+    public int getLocationId(int i)
+    {
+        return locationId[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    /**
+     * Accessor method to get the location name of a record
+     * @param i int: the index of the record
+     * @return String: the location of the quake
+     */
+    public String getLocation(int i)
+    {
+        return locations.getName( getLocationId( i ) );
+    }
+
+    /**
+     * Accessor method to get the number of unique location names in the store
+     * @return int: the number of location names, which is one more than the largest location id
+     */
+    public int getNumOfLocations()
+    {
+        return locations.size();
+    }
+
+    /**
+     * Accessor method to get a location name by its id
+     * @param id int: the id of the location name
+     * @return String: the location name
+     */
+    public String getLocationName(int id)
+    {
+        return locations.getName( id );
+    }
+
+    /**
+     * Method to add every record of another store to the end of this store
+     * Location ids of the other store are converted to the ids of this store
+     * @param other QuakeStore: the store with the records to add
+     */
+    public void addAll(QuakeStore other)
+    {
+        int[] newIds = new int[other.getNumOfLocations()];
+
+        for (int id = 0; id < newIds.length; id++)
+        {
+            newIds[id] = internLocation( other.getLocationName( id ) );
+        }
+
+        for (int i = 0; i < other.size(); i++)
+        {
+            add( other.getPackedDate( i ), other.getPackedTime( i ), other.getLatitude( i ),
+                    other.getLongitude( i ), other.getRichter( i ), newIds[other.getLocationId( i )] );
+        }
+    }
+
+    /**
+     * Method to create a QuakeRecord object from the data of a record in the store
+     * @param i int: the index of the record
+     * @return QuakeRecord: a new QuakeRecord object holding the data of the record
+     */
+    public QuakeRecord getRecord(int i)
+    {
+        QuakeRecord rec = new QuakeRecord();
+
+        rec.setDate( Dates.decode( getPackedDate( i ) ) );
+        rec.setTime( Times.decode( getPackedTime( i ) ) );
+        rec.setLatitude( getLatitude( i ) );
+        rec.setLongitude( getLongitude( i ) );
+        rec.setRichter( getRichter( i ) );
+        rec.setLocation( getLocation( i ) );
+
+        return rec;
+    }
+
+    /**
+     * Method to add a record to a StringBuilder in the form of QuakeRecord.toModString
+     * The record is formatted straight from the columns, so no objects are created
+     * @param i int: the index of the record
+     * @param builder StringBuilder: the builder to add the record to
+     * @return StringBuilder: the builder, to allow calls to be chained
+     */
+    public StringBuilder appendModString(int i, StringBuilder builder)
+    {
+        int date = getPackedDate( i );
+        int time = getPackedTime( i );
+
+        Dates.appendModString( builder, Dates.decodeYear( date ), Dates.decodeMonth( date ), Dates.decodeDay( date ) )
+                .append( ' ' );
+        Times.appendModString( builder, Times.decodeHour( time ), Times.decodeMinute( time ), Times.decodeSecond( time ) )
+                .append( ", " );
+        QuakeRecord.appendLatLong( builder, getLatitude( i ), getLongitude( i ) ).append( ", \tMag: " );
+        QuakeRecord.appendFixed( builder, getRichter( i ), 1 ).append( '\t' );
+        return builder.append( getLocation( i ) );
+    }
+
+    /**
+     * Method to check if a record in the store holds the same data as the record parameter
+     * The record parameter is packed the same way as the store data before comparing
+     * @param i int: the index of the record in the store
+     * @param record QuakeRecord: the record to compare
+     * @return boolean: true if the records contain the same data, false if not
+     */
+    public boolean isEqual(int i, QuakeRecord record)
+    {
+        return getLatitude( i ) == record.getLatitude() && getLongitude( i ) == record.getLongitude() &&
+                getRichter( i ) == record.getRichter() &&
+                getPackedDate( i ) == packDate( record.getYear(), record.getMonth(), record.getDay() ) &&
+                getPackedTime( i ) == packTime( record.getHour(), record.getMinute(), record.getSecond() ) &&
+                getLocation( i ).equals( record.getLocation() );
+    }
+
+    /**
+     * Method to pack a date into an int of the form yyyymmdd
+     * Packed dates compare in the same order as Dates.compareTo
+     * @param year int: the year
+     * @param month int: the month
+     * @param day int: the day
+     * @return int: the packed date
+     */
+    public static int packDate(int year, int month, int day)
+    {
+        return Dates.encode( year, month, day );
+    }
+
+    /**
+     * Method to pack a time into an int of the form hhmmssSSS
+     * The seconds are stored to the nearest millisecond
+     * @param hour int: the hour
+     * @param minute int: the minute
+     * @param second double: the second including the decimal part
+     * @return int: the packed time
+     */
+    public static int packTime(int hour, int minute, double second)
+    {
+        return Times.encode( hour, minute, second );
+    }
+
+    /**
+     * Method to get the id of a location name, adding the name to the location table if it is new
+     * @param loc String: the location name
+     * @return int: the id of the location name
+     */
+    public int internLocation(String loc)
+    {
+        return locations.intern( loc );
+    }
+
+    /**
+     * Accessor method to get the dictionary of location names, to search the names or find the id of a name
+     * @return LocationDictionary: the location names of the store
+     */
+    public LocationDictionary getLocations()
+    {
+        return locations;
+    }
+
+    /**
+     * Method to check if two records have the same location, by comparing their location ids
+     * @param i int: the index of a record
+     * @param j int: the index of another record
+     * @return boolean: true if the records have the same location name, false if not
+     */
+    public boolean sameLocation(int i, int j)
+    {
+        return getLocationId( i ) == getLocationId( j );
+    }
+}
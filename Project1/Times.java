@@ -15,6 +15,7 @@ public class Times
 {
     private int hour, minute;
     private double second;
+    private static final int MAX_PACKED_MILLIS = 99999;     // largest second of a packed time, in milliseconds
 
     /**
      * No-argument constructor to create a time object
@@ -193,6 +194,18 @@ public class Times
      * @return boolean: true if the values in the time object are all valid, false otherwise
      */
     public boolean isValid()
+    {
+        return isValid( hour, minute, second );
+    }
+
+    /**
+     * Method checks to see if an hour, minute and second make a valid time
+     * @param hour int: the hour
+     * @param minute int: the minute
+     * @param second double: the second
+     * @return boolean: true if the time is valid, false if it is not
+     */
+    public static boolean isValid(int hour, int minute, double second)
     {
         boolean valid = true;
 
@@ -228,6 +241,59 @@ public class Times
         return str;
     }
 
+    /**
+     * Method to add the time to a StringBuilder in the format requested by the instructor
+     * The digits are added directly, so no temporary Strings are created
+     * @param builder StringBuilder: the builder to add the time to
+     * @return StringBuilder: the builder, to allow calls to be chained
+     */
+    public StringBuilder appendModString(StringBuilder builder)
+    {
+        return appendModString( builder, hour, minute, second );
+    }
+
+    /**
+     * Method to add a time to a StringBuilder in the form HHMMz, the same as toModString
+     * It rounds to the nearest minute in the same way as HourtoString and MinutetoString
+     * @param builder StringBuilder: the builder to add the time to
+     * @param hour int: the hour
+     * @param minute int: the minute
+     * @param second double: the second
+     * @return StringBuilder: the builder, to allow calls to be chained
+     */
+    public static StringBuilder appendModString(StringBuilder builder, int hour, int minute, double second)
+    {
+        int tempHours = hour;
+        int tempMin = minute;
+
+        if (isValid( hour, minute, second ))
+        {
+            if (second >= 30.0)                 // check if closer to next minute
+            {
+                tempMin++;
+            }
+            if (tempMin == 60)                  // do not round to the next day
+            {
+                tempMin = 0;
+                if (hour == 23)
+                {
+                    tempMin = 59;
+                }
+                else
+                {
+                    tempHours++;
+                }
+            }
+            builder.append( (char) ('0' + tempHours / 10) ).append( (char) ('0' + tempHours % 10) )
+                    .append( (char) ('0' + tempMin / 10) ).append( (char) ('0' + tempMin % 10) );
+        }
+        else
+        {
+            builder.append( "NANA" );
+        }
+        return builder.append( 'z' );
+    }
+
     /**
      * Method to return true if when rounding to the nearest second, the minutes should be rounded up
      * @return boolean: true if seconds are being rounded from 59 to 00, false if not
@@ -436,4 +502,97 @@ public class Times
         return compare;
     }
 
+    /**
+     * Method to pack a time into an int of the form hhmmssSSS
+     * The seconds are stored to the nearest millisecond, but a second under 60 is never rounded up to 60, so
+     * a valid time stays valid.  Times with hours and minutes from 0 to 99 and seconds from 0 to under 100
+     * decode to the same fields, to the millisecond, and packed valid times sort in the same order as compareTo.
+     * A field outside of its range would carry into the next field or overflow, so it is stored as the
+     * largest value, 99 or 99.999, which is not valid either, so an invalid time stays invalid
+     * @param hour int: the hour
+     * @param minute int: the minute
+     * @param second double: the second including the decimal part
+     * @return int: the packed time
+     */
+    public static int encode(int hour, int minute, double second)
+    {
+        long millis = MAX_PACKED_MILLIS;        // also used for a negative second or one that is not a number
+
+        if (second >= 0.0 && second < 100.0)
+        {
+            millis = Math.min( MAX_PACKED_MILLIS, Math.round( second * 1000 ) );
+            if (second < 60.0 && millis >= 60000)
+            {
+                millis = 59999;
+            }
+        }
+        if (hour < 0 || hour > 99)
+        {
+            hour = 99;
+        }
+        if (minute < 0 || minute > 99)
+        {
+            minute = 99;
+        }
+        return hour * 10000000 + minute * 100000 + (int) millis;
+    }
+
+    /**
+     * Method to get the hour of a packed time
+     * @param packed int: a time of the form hhmmssSSS
+     * @return int: the hour
+     */
+    public static int decodeHour(int packed)
+    {
+        return packed / 10000000;
+    }
+
+    /**
+     * Method to get the minute of a packed time
+     * @param packed int: a time of the form hhmmssSSS
+     * @return int: the minute
+     */
+    public static int decodeMinute(int packed)
+    {
+        return packed / 100000 % 100;
+    }
+
+    /**
+     * Method to get the second of a packed time
+     * @param packed int: a time of the form hhmmssSSS
+     * @return double: the second including the milliseconds
+     */
+    public static double decodeSecond(int packed)
+    {
+        return packed % 100000 / 1000.0;
+    }
+
+    /**
+     * Method to count the milliseconds from midnight to a packed time
+     * @param packed int: a time of the form hhmmssSSS
+     * @return int: the number of milliseconds after midnight
+     */
+    public static int millisOfDay(int packed)
+    {
+        return (decodeHour( packed ) * 60 + decodeMinute( packed )) * 60000 + packed % 100000;
+    }
+
+    /**
+     * Method to create a Times object from a packed time
+     * @param packed int: a time of the form hhmmssSSS
+     * @return Times: a new Times object holding the time
+     */
+    public static Times decode(int packed)
+    {
+        return new Times( decodeHour( packed ), decodeMinute( packed ), decodeSecond( packed ) );
+    }
+
+    /**
+     * Method to pack the time into an int of the form hhmmssSSS
+     * @return int: the packed time
+     */
+    public int toPacked()
+    {
+        return encode( hour, minute, second );
+    }
 }
@@ -620,10 +620,10 @@ public class Alerts
         boolean equal = false;
         if (FIPSCode.equals( anAlert.getFIPSCode()) &&
                 warningCode.equals( anAlert.getWarningCode() ) &&
-                startDate.isEqual( anAlert.getStartDate() ) &&
-                endDate.isEqual( anAlert.getEndDate() ) &&
-                startTime.isEqual( anAlert.getStartTime() ) &&
-                endTime.isEqual( anAlert.getEndTime() ) )
+                startDate.isEqual( anAlert.startDate ) &&           // compare the fields without deep copies
+                endDate.isEqual( anAlert.endDate ) &&
+                startTime.isEqual( anAlert.startTime ) &&
+                endTime.isEqual( anAlert.endTime ) )
         {
             equal = true;
         }